@@ -0,0 +1,343 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Measures the throughput and allocation of the hot paths of the board and pieces over a fixed set of positions.
+//
+//     java Benchmark [-json <file>] [-baseline <file>] [-threshold <percent>] [-filter <text>]
+//
+// "-json" writes the results, "-baseline" compares them against results written earlier and exits with status 1 if
+// any benchmark got slower by more than the threshold (10% unless given), and "-filter" only runs the benchmarks
+// whose name contains the text
+class Benchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final long ROUND_NANOS = 200_000_000L;
+    private static final double DEFAULT_THRESHOLD = 10.0;
+
+    // The positions every benchmark runs on: the start, an Italian game after 4. d3 d6 and a rook and knight ending
+    private static final String[] POSITION_NAMES = {"opening", "middlegame", "endgame"};
+    private static final String[] POSITIONS = {
+        Chessboard.START_FEN,
+        "r1bqk1nr/ppp2ppp/2np4/2b1p3/2B1P3/3P1N2/PPP2PPP/RNBQK2R w KQkq - 0 5",
+        "2r3k1/5pp1/1p2pn1p/8/3N4/1P2P1P1/5P1P/2R3K1 w - - 0 30"
+    };
+
+    // What each benchmark measures
+    private static final int MOVE_PIECE = 0;
+    private static final int RESULTS_IN_CHECK = 1;
+    private static final int KING_TARGETED = 2;
+    private static final int CHECKMATE = 3;
+    private static final int POSSIBLE_MOVES = 4;
+    private static final int TARGETS_KING = 5;
+    private static final int VALID_INPUT = 6;
+    private static final int MOVE_LIST = 7;
+    private static final int LEGAL_MOVES = 8;
+
+    private static final String[] PIECE_NAMES = {"Pawn", "Knight", "Bishop", "Rook", "Queen", "King"};
+
+    // Inputs that "Chess.validInput()" rejects for each of its reasons, so that parsing them never moves a piece
+    private static final String[] INPUTS = {"hello!", "Ki 1", "Ki x 1", "ki 1 1", "Ki 8 8", "Ki 1 5 "};
+
+    private static final Pattern RESULT = Pattern.compile(
+        "\"name\": \"([^\"]+)\", \"position\": \"([^\"]+)\", \"opsPerSec\": ([0-9.]+)");
+
+    private final MoveList moves = new MoveList();
+    private final com.sun.management.ThreadMXBean threads;
+    private final List<String> results = new ArrayList<String>();
+
+    // The piece and destination that "movePiece()" and "resultsInCheck()" are measured with
+    private ChessPiece mover;
+    private Position moverStart;
+    private Position moverDest;
+
+    private Chess parser;
+    private int type;
+
+    Benchmark() {
+        super();
+        this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    public static void main(String args[]) throws IOException {
+        Benchmark benchmark = new Benchmark();
+        String json = null;
+        String baseline = null;
+        String filter = "";
+        double threshold = Benchmark.DEFAULT_THRESHOLD;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("-json")) {
+                json = args[i + 1];
+
+            } else if (args[i].equals("-baseline")) {
+                baseline = args[i + 1];
+
+            } else if (args[i].equals("-threshold")) {
+                threshold = Double.parseDouble(args[i + 1]);
+
+            } else if (args[i].equals("-filter")) {
+                filter = args[i + 1];
+            }
+        }
+
+        benchmark.run(filter);
+
+        if (json != null) {
+            benchmark.writeJson(json);
+        }
+
+        if (baseline != null && !benchmark.compare(baseline, threshold)) {
+            System.exit(1);
+        }
+    }
+
+    void run(String filter) {
+        System.out.printf("%-28s %-11s %14s %10s%n", "Benchmark", "Position", "ops/sec", "bytes/op");
+
+        for (int i = 0; i < Benchmark.POSITIONS.length; i++) {
+            Chessboard chessboard = new Chessboard();
+            chessboard.loadFen(Benchmark.POSITIONS[i]);
+            this.setUp(chessboard);
+
+            this.report("movePiece", filter, i, chessboard, Benchmark.MOVE_PIECE);
+            this.report("resultsInCheck", filter, i, chessboard, Benchmark.RESULTS_IN_CHECK);
+            this.report("kingTargeted", filter, i, chessboard, Benchmark.KING_TARGETED);
+            this.report("checkmate", filter, i, chessboard, Benchmark.CHECKMATE);
+
+            for (int type = ChessPiece.PAWN; type <= ChessPiece.KING; type++) {
+                long pieces = chessboard.getPieces(Chessboard.WHITE, type) | chessboard.getPieces(Chessboard.BLACK, type);
+
+                // Positions without the piece would only measure an empty loop
+                if (pieces == 0) {
+                    continue;
+                }
+
+                this.type = type;
+
+                this.report("possibleMoves." + Benchmark.PIECE_NAMES[type], filter, i, chessboard,
+                    Benchmark.POSSIBLE_MOVES);
+                this.report("targetsKing." + Benchmark.PIECE_NAMES[type], filter, i, chessboard,
+                    Benchmark.TARGETS_KING);
+            }
+
+            this.report("validInput", filter, i, chessboard, Benchmark.VALID_INPUT);
+            this.report("moveList", filter, i, chessboard, Benchmark.MOVE_LIST);
+            this.report("legalMoves", filter, i, chessboard, Benchmark.LEGAL_MOVES);
+        }
+
+        System.out.printf("Magic tables built in %.1f ms%n", Magic.INIT_NANOS / 1e6);
+    }
+
+    // Picks the first piece of the side to move other than a Pawn, King or Rook that has a move to a vacant square,
+    // so that moving it there and back leaves the pieces where they were. The move also hands the turn to the other
+    // side, which stays with it, so "report()" loads the position again after measuring the moves
+    void setUp(Chessboard chessboard) {
+        this.mover = null;
+        this.parser = new Chess(chessboard, chessboard.getPlayer(chessboard.getSideToMove()));
+
+        for (int square = 0; square < Chessboard.SQUARES && this.mover == null; square++) {
+            ChessPiece piece = chessboard.getPiece(Position.of(square));
+
+            if (piece == null || Chessboard.side(piece.getOwner()) != chessboard.getSideToMove()
+                || piece.getType() == ChessPiece.PAWN || piece.getType() == ChessPiece.KING
+                || (piece.getType() == ChessPiece.ROOK && chessboard.getCastlingRights() != 0)) {
+                continue;
+            }
+
+            for (Position dest : piece.possibleMoves(chessboard)) {
+                if (chessboard.vacantSpot(dest)) {
+                    this.mover = piece;
+                    this.moverStart = piece.getPos();
+                    this.moverDest = dest;
+                    break;
+                }
+            }
+        }
+    }
+
+    void report(String name, String filter, int position, Chessboard chessboard, int mode) {
+        PrintStream out = System.out;
+        String fen = chessboard.toFen();
+        double best = 0;
+        long bytes;
+        long ops = 0;
+
+        if (!name.contains(filter)) {
+            return;
+        }
+
+        // "Chess.validInput()" explains every rejection on the console, which would be measured too
+        if (mode == Benchmark.VALID_INPUT) {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        for (int round = 0; round < Benchmark.WARMUP_ROUNDS; round++) {
+            this.measure(chessboard, mode);
+        }
+
+        bytes = this.threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+
+        for (int round = 0; round < Benchmark.MEASURED_ROUNDS; round++) {
+            double[] result = this.measure(chessboard, mode);
+
+            best = Math.max(best, result[0]);
+            ops += (long) result[1];
+        }
+
+        bytes = this.threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - bytes;
+        System.setOut(out);
+
+        if (mode == Benchmark.MOVE_PIECE) {
+            chessboard.loadFen(fen);
+            this.setUp(chessboard);
+        }
+
+        // Every benchmark after this one measures the same position, so none may change it
+        if (!chessboard.toFen().equals(fen)) {
+            throw new IllegalStateException(name + " changed the " + Benchmark.POSITION_NAMES[position]
+                + " position from " + fen + " to " + chessboard.toFen());
+        }
+
+        System.out.printf("%-28s %-11s %14.0f %10.1f%n", name, Benchmark.POSITION_NAMES[position], best,
+            (double) bytes / ops);
+        this.results.add(String.format(Locale.ROOT,
+            "    {\"name\": \"%s\", \"position\": \"%s\", \"opsPerSec\": %.1f, \"bytesPerOp\": %.1f}", name,
+            Benchmark.POSITION_NAMES[position], best, (double) bytes / ops));
+    }
+
+    // Returns the number of operations per second achieved during one round, and the number of operations
+    double[] measure(Chessboard chessboard, int mode) {
+        long ops = 0;
+        long sink = 0;
+        long start = System.nanoTime();
+        long elapsed;
+
+        do {
+            for (int i = 0; i < 100; i++) {
+                sink += this.operation(chessboard, mode, i);
+            }
+
+            ops += 100;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < Benchmark.ROUND_NANOS);
+
+        if (sink == 42) {
+            System.out.print("");
+        }
+
+        return new double[] {ops * 1e9 / elapsed, ops};
+    }
+
+    // Runs the measured operation once and returns something that depends on its result, so it can't be skipped
+    long operation(Chessboard chessboard, int mode, int i) {
+        ChessPlayer toMove = chessboard.getPlayer(chessboard.getSideToMove());
+        long sink = 0;
+
+        switch (mode) {
+            case Benchmark.MOVE_PIECE:
+                chessboard.movePiece(this.moverStart, this.moverDest);
+                chessboard.movePiece(this.moverDest, this.moverStart);
+                return chessboard.getSideToMove();
+
+            case Benchmark.RESULTS_IN_CHECK:
+                return chessboard.resultsInCheck(this.mover, this.moverDest) ? 1 : 0;
+
+            case Benchmark.KING_TARGETED:
+                return chessboard.kingTargeted(toMove) ? 1 : 0;
+
+            case Benchmark.CHECKMATE:
+                sink = chessboard.checkmate(chessboard.getOpponent(toMove)) ? 1 : 0;
+                chessboard.clearEscapes();
+                return sink;
+
+            case Benchmark.POSSIBLE_MOVES:
+            case Benchmark.TARGETS_KING:
+                for (int side = Chessboard.WHITE; side <= Chessboard.BLACK; side++) {
+                    long remaining = chessboard.getPieces(side, this.type);
+
+                    while (remaining != 0) {
+                        ChessPiece piece = chessboard.getPiece(Position.of(Bitboard.first(remaining)));
+
+                        if (mode == Benchmark.POSSIBLE_MOVES) {
+                            sink += piece.possibleMoves(chessboard).size();
+
+                        } else {
+                            sink += piece.targetsKing(chessboard) ? 1 : 0;
+                        }
+
+                        remaining &= remaining - 1;
+                    }
+                }
+
+                return sink;
+
+            case Benchmark.VALID_INPUT:
+                return this.parser.validInput(Benchmark.INPUTS[i % Benchmark.INPUTS.length]) ? 1 : 0;
+
+            case Benchmark.MOVE_LIST:
+                chessboard.generateMoves(this.moves);
+                return this.moves.size();
+
+            default:
+                chessboard.generateLegalMoves(this.moves);
+                return this.moves.size();
+        }
+    }
+
+    void writeJson(String file) throws IOException {
+        String json = "{\n  \"benchmarks\": [\n" + String.join(",\n", this.results) + "\n  ]\n}\n";
+
+        Files.write(Paths.get(file), json.getBytes(StandardCharsets.UTF_8));
+        System.out.println("Wrote " + file);
+    }
+
+    // Prints the change of every benchmark against the baseline and returns "false" if any got slower by more than
+    // the threshold, in percent
+    boolean compare(String file, double threshold) throws IOException {
+        HashMap<String, Double> baseline = new HashMap<String, Double>();
+        Matcher matcher = Benchmark.RESULT.matcher(new String(Files.readAllBytes(Paths.get(file)),
+            StandardCharsets.UTF_8));
+        boolean passed = true;
+
+        while (matcher.find()) {
+            baseline.put(matcher.group(1) + " " + matcher.group(2), Double.parseDouble(matcher.group(3)));
+        }
+
+        System.out.println();
+        System.out.printf("Compared with %s (threshold %.1f%%)%n", file, threshold);
+
+        for (String result : this.results) {
+            Matcher current = Benchmark.RESULT.matcher(result);
+            String key;
+            double change;
+
+            if (!current.find() || !baseline.containsKey(current.group(1) + " " + current.group(2))) {
+                continue;
+            }
+
+            key = current.group(1) + " " + current.group(2);
+            change = 100 * (Double.parseDouble(current.group(3)) / baseline.get(key) - 1);
+
+            if (change < -threshold) {
+                passed = false;
+            }
+
+            System.out.printf("%-40s %+8.1f%% %s%n", key, change, change < -threshold ? "REGRESSION" : "");
+        }
+
+        System.out.println(passed ? "No regressions" : "Some benchmarks regressed");
+
+        return passed;
+    }
+}
\ No newline at end of file
@@ -1,10 +1,15 @@
-import java.util.HashSet;
-
 public class Bishop extends ChessPiece{
+    static final int[][] DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
     public Bishop(ChessPlayer owner, Position start) {
         super(owner, start);
     }
 
+    @Override
+    int getType() {
+        return ChessPiece.BISHOP;
+    }
+
     @Override
     boolean move(Chessboard chessboard, Position dest) {
         int destRow = dest.getRow();
@@ -13,12 +18,9 @@ public class Bishop extends ChessPiece{
         int thisCol = this.getPos().getCol();
         boolean samePosition;
         boolean outOfBounds;
-        boolean traverseUp;
-        boolean traverseRight;
         boolean traverseDiagPosSlope;
         boolean traverseDiagNegSlope;
         boolean validMove;
-        Position pos;
 
         // If the player is in check, then check if the move escapes it
         if (this.getOwner().inCheck()) {
@@ -37,53 +39,15 @@ public class Bishop extends ChessPiece{
             outOfBounds = destRow < 1 || destRow > 8 || destCol < 1 || destCol > 8;
 
             if (!outOfBounds) {
-                traverseUp = destRow > thisRow;
-                traverseRight = destCol > thisCol;
                 traverseDiagPosSlope = destRow - thisRow == destCol - thisCol;
                 traverseDiagNegSlope = destRow - thisRow == -(destCol - thisCol);
                 validMove = traverseDiagPosSlope || traverseDiagNegSlope;
-                pos = new Position();
 
                 if (validMove) {
-                    if (traverseUp) {
-                        if (traverseRight) {
-                            for (int curr = 1; curr < destCol - thisCol; curr++) {
-                                pos.setPosition(thisRow + curr, thisCol + curr);
-
-                                if (!chessboard.vacantSpot(pos)) {
-                                    return false;
-                                }
-                            }
-
-                        } else {
-                            for (int curr = 1; curr < thisCol - destCol; curr++) {
-                                pos.setPosition(thisRow + curr, thisCol - curr);
-
-                                if (!chessboard.vacantSpot(pos)) {
-                                    return false;
-                                }
-                            }
-                        }
-                        
-                    } else {
-                        if (traverseRight) {
-                            for (int curr = 1; curr < destCol - thisCol; curr++) {
-                                pos.setPosition(thisRow - curr, thisCol + curr);
-
-                                if (!chessboard.vacantSpot(pos)) {
-                                    return false;
-                                }
-                            }
-
-                        } else {
-                            for (int curr = 1; curr < thisCol - destCol; curr++) {
-                                pos.setPosition(thisRow - curr, thisCol - curr);
-
-                                if (!chessboard.vacantSpot(pos)) {
-                                    return false;
-                                }
-                            }
-                        }
+                    // The path to the destination must be clear
+                    if (!Bitboard.contains(Bishop.attacks(this.getPos().getSquare(), chessboard.getOccupied()),
+                        dest.getSquare())) {
+                        return false;
                     }
 
                     if (chessboard.friendlyFire(this.getOwner(), dest)) {
@@ -99,12 +63,7 @@ public class Bishop extends ChessPiece{
                     chessboard.movePiece(this.getPos(), dest);
 
                     if (this.targetsKing(chessboard)) {
-                        if (this.getOwner() == Chess.PLAYER1) {
-                            Chess.PLAYER2.checked();
-
-                        } else {
-                            Chess.PLAYER1.checked();
-                        }
+                        chessboard.getOpponent(this.getOwner()).checked();
                     }
 
                 } else {
@@ -122,150 +81,13 @@ public class Bishop extends ChessPiece{
         return true;
     }
 
-    @Override
-    boolean targetsKing(Chessboard chessboard) {
-        int thisRow = this.getPos().getRow();
-        int thisCol = this.getPos().getCol();
-        Position pos = new Position(thisRow, thisCol);
-        String king;
-
-        if (this.getOwner() == Chess.PLAYER1) {
-            king = "ki";
-
-        } else {
-            king = "Ki";
-        }
-
-        for (int upRight = 1; thisRow + upRight <= 8 && thisCol + upRight <= 8; upRight++) {
-            pos.setPosition(thisRow + upRight, thisCol + upRight);
-
-            if (!chessboard.vacantSpot(pos)) {
-                break;
-            }
-        }
-
-        if (chessboard.isPiece(pos) && chessboard.getID(pos).equals(king)) {
-            return true;
-        }
-
-        pos.setPosition(thisRow, thisCol);
-
-        for (int upLeft = 1; thisRow + upLeft <= 8 && thisCol - upLeft >= 1; upLeft++) {
-            pos.setPosition(thisRow + upLeft, thisCol - upLeft);
-
-            if (!chessboard.vacantSpot(pos)) {
-                break;
-            }
-        }
-
-        if (chessboard.isPiece(pos) && chessboard.getID(pos).equals(king)) {
-            return true;
-        }
-
-        pos.setPosition(thisRow, thisCol);
-
-        for (int downRight = 1; thisRow - downRight >= 1 && thisCol + downRight <= 8; downRight++) {
-            pos.setPosition(thisRow - downRight, thisCol + downRight);
-
-            if (!chessboard.vacantSpot(pos)) {
-                break;
-            }
-        }
-
-        if (chessboard.isPiece(pos) && chessboard.getID(pos).equals(king)) {
-            return true;
-        }
-
-        pos.setPosition(thisRow, thisCol);
-
-        for (int downLeft = 1; thisRow - downLeft >= 1 && thisCol - downLeft >= 1; downLeft++) {
-            pos.setPosition(thisRow - downLeft, thisCol - downLeft);
-
-            if (!chessboard.vacantSpot(pos)) {
-                break;
-            }
-        }
-
-        if (chessboard.isPiece(pos) && chessboard.getID(pos).equals(king)) {
-            return true;
-        }
-
-        return false;
+    // Returns the squares attacked by a Bishop on the square, given the occupied squares
+    static long attacks(int square, long occupied) {
+        return Magic.bishopAttacks(square, occupied);
     }
 
-    @Override
-    HashSet<Position> possibleMoves(Chessboard chessboard) {
-        HashSet<Position> moves = new HashSet<Position>();
-        int thisRow = this.getPos().getRow();
-        int thisCol = this.getPos().getCol();
-        Position pos = new Position(thisRow, thisCol);
-
-        for (int upRight = 1; thisRow + upRight <= 8 && thisCol + upRight <= 8; upRight++) {
-            pos.setPosition(thisRow + upRight, thisCol + upRight);
-
-            if (!chessboard.vacantSpot(pos)) {
-                if (chessboard.isEnemy(this.getOwner(), pos)) {
-                    moves.add(new Position(thisRow + upRight, thisCol + upRight));
-                }
-
-                break;
-
-            } else {
-                moves.add(new Position(thisRow + upRight, thisCol + upRight));
-            }
-        }
-
-        pos.setPosition(thisRow, thisCol);
-
-        for (int upLeft = 1; thisRow + upLeft <= 8 && thisCol - upLeft >= 1; upLeft++) {
-            pos.setPosition(thisRow + upLeft, thisCol - upLeft);
-
-            if (!chessboard.vacantSpot(pos)) {
-                if (chessboard.isEnemy(this.getOwner(), pos)) {
-                    moves.add(new Position(thisRow + upLeft, thisCol - upLeft));
-                }
-
-                break;
-
-            } else {
-                moves.add(new Position(thisRow + upLeft, thisCol - upLeft));
-            }
-        }
-
-        pos.setPosition(thisRow, thisCol);
-
-        for (int downRight = 1; thisRow - downRight >= 1 && thisCol + downRight <= 8; downRight++) {
-            pos.setPosition(thisRow - downRight, thisCol + downRight);
-
-            if (!chessboard.vacantSpot(pos)) {
-                if (chessboard.isEnemy(this.getOwner(), pos)) {
-                    moves.add(new Position(thisRow - downRight, thisCol + downRight));
-                }
-
-                break;
-
-            } else {
-                moves.add(new Position(thisRow - downRight, thisCol + downRight));
-            }
-        }
-
-        pos.setPosition(thisRow, thisCol);
-
-        for (int downLeft = 1; thisRow - downLeft >= 1 && thisCol - downLeft >= 1; downLeft++) {
-            pos.setPosition(thisRow - downLeft, thisCol - downLeft);
-            
-            if (!chessboard.vacantSpot(pos)) {
-                if (chessboard.isEnemy(this.getOwner(), pos)) {
-                    moves.add(new Position(thisRow - downLeft, thisCol - downLeft));
-                }
-
-                break;
-
-            } else {
-                moves.add(new Position(thisRow - downLeft, thisCol - downLeft));
-            }
-        }
-
-        return moves;
+    // Adds the moves of the Bishop on the square to the list
+    static void generateMoves(Chessboard chessboard, int from, MoveList moves, int kind) {
+        ChessPiece.addMoves(chessboard, from, Bishop.attacks(from, chessboard.getOccupied()), moves, kind);
     }
 }
\ No newline at end of file
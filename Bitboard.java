@@ -0,0 +1,95 @@
+// Helpers for 64-bit boards where bit 0 is (1, 1), bit 7 is (1, 8) and bit 63 is (8, 8)
+class Bitboard {
+    static final long EMPTY = 0L;
+    static final long FULL = ~0L;
+
+    private static final int[][] DIRECTIONS = {{1, 0}, {-1, 0}, {0, -1}, {0, 1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    // The squares strictly between two squares that share a row, column or diagonal, and the whole line through
+    // them. Both are empty for squares that don't share a line
+    private static final long[][] BETWEEN = new long[Chessboard.SQUARES][Chessboard.SQUARES];
+    private static final long[][] LINE = new long[Chessboard.SQUARES][Chessboard.SQUARES];
+
+    static {
+        for (int square = 0; square < Chessboard.SQUARES; square++) {
+            for (int[] direction : Bitboard.DIRECTIONS) {
+                long line = Bitboard.bit(square)
+                    | Bitboard.ray(square, direction[0], direction[1])
+                    | Bitboard.ray(square, -direction[0], -direction[1]);
+                long between = Bitboard.EMPTY;
+                int row = Bitboard.row(square) + direction[0];
+                int col = Bitboard.col(square) + direction[1];
+
+                while (row >= 1 && row <= Chessboard.HEIGHT && col >= 1 && col <= Chessboard.WIDTH) {
+                    int other = Bitboard.square(row, col);
+
+                    Bitboard.BETWEEN[square][other] = between;
+                    Bitboard.LINE[square][other] = line;
+                    between |= Bitboard.bit(other);
+                    row += direction[0];
+                    col += direction[1];
+                }
+            }
+        }
+    }
+
+    private Bitboard() {
+        super();
+    }
+
+    static int square(int row, int col) {
+        return (row - 1) * Chessboard.WIDTH + (col - 1);
+    }
+
+    static int square(Position pos) {
+        return pos.getSquare();
+    }
+
+    static int row(int square) {
+        return square / Chessboard.WIDTH + 1;
+    }
+
+    static int col(int square) {
+        return square % Chessboard.WIDTH + 1;
+    }
+
+    static long bit(int square) {
+        return 1L << square;
+    }
+
+    static boolean contains(long board, int square) {
+        return (board & (1L << square)) != 0;
+    }
+
+    // Returns the index of the lowest set bit, or 64 if the board is empty
+    static int first(long board) {
+        return Long.numberOfTrailingZeros(board);
+    }
+
+    static int count(long board) {
+        return Long.bitCount(board);
+    }
+
+    static long between(int from, int to) {
+        return Bitboard.BETWEEN[from][to];
+    }
+
+    static long line(int from, int to) {
+        return Bitboard.LINE[from][to];
+    }
+
+    // Returns the squares from the square (excluded) to the edge of the board in one direction
+    private static long ray(int square, int rowStep, int colStep) {
+        long ray = Bitboard.EMPTY;
+        int row = Bitboard.row(square) + rowStep;
+        int col = Bitboard.col(square) + colStep;
+
+        while (row >= 1 && row <= Chessboard.HEIGHT && col >= 1 && col <= Chessboard.WIDTH) {
+            ray |= Bitboard.bit(Bitboard.square(row, col));
+            row += rowStep;
+            col += colStep;
+        }
+
+        return ray;
+    }
+}
\ No newline at end of file
@@ -1,23 +1,90 @@
+import java.io.IOException;
 import java.util.Scanner;
 
 public class Chess {
-    static final ChessPlayer PLAYER1 = new ChessPlayer("Player 1");
-    static final ChessPlayer PLAYER2 = new ChessPlayer("Player 2");
+    static final ChessPlayer PLAYER1 = new ChessPlayer("Player 1", Chessboard.WHITE);
+    static final ChessPlayer PLAYER2 = new ChessPlayer("Player 2", Chessboard.BLACK);
+
+    // The choices of "promote()" for each promotion a move can make, from a Knight to a Queen
+    private static final String[] PROMOTIONS = {"Knight", "Bishop", "Rook", "Queen"};
+
+    // How long the computer thinks about each move, which can be set with "-Dengine.millis=N"
+    private static final int ENGINE_MILLIS = Integer.getInteger("engine.millis", 1000);
+
+    // How long the engine thinks about a hint when the position isn't in the book
+    private static final int HINT_MILLIS = 500;
+
     private Chessboard chessboard;
     private ChessPlayer currentPlayer;
     private boolean gameOver;
     private Scanner input;
 
+    // The player the engine moves for, or null when two people are playing
+    private ChessPlayer computer;
+    private Engine engine;
+
+    // The opening book set with "-Dchess.book=FILE", or null
+    private OpeningBook book;
+
+    public Chess() {
+        super();
+    }
+
+    // Sets up a game on the board without starting it, so that input can be checked against the board. The
+    // benchmarks use this to measure "validInput()"
+    Chess(Chessboard chessboard, ChessPlayer currentPlayer) {
+        super();
+        this.chessboard = chessboard;
+        this.currentPlayer = currentPlayer;
+    }
+
     public static void main(String args[]) {
+        // "java Chess perft ..." and "java Chess divide ..." count move trees instead of starting a game
+        if (args.length > 0 && (args[0].equals("perft") || args[0].equals("divide"))) {
+            Perft.run(args);
+            return;
+        }
+
+        // "java Chess search ..." lets the engine analyze a position
+        if (args.length > 0 && args[0].equals("search")) {
+            Engine.run(args);
+            return;
+        }
+
+        // "java Chess tablebase ..." generates or probes endgame tablebases
+        if (args.length > 0 && args[0].equals("tablebase")) {
+            Tablebase.run(args);
+            return;
+        }
+
         Chess game = new Chess();
         game.initialize();
     }
 
     public void initialize() {
-        this.chessboard = new Chessboard();
+        this.chessboard = new Chessboard(Chess.PLAYER1, Chess.PLAYER2);
         this.chessboard.initialize();
         this.input = new Scanner(System.in);
 
+        if (System.getProperty("chess.book") != null) {
+            try {
+                this.book = OpeningBook.open(System.getProperty("chess.book"));
+
+            } catch (IOException e) {
+                System.out.println("The opening book can't be used: " + e.getMessage());
+            }
+        }
+
+        // The tablebases in "-Dchess.tablebases=DIR" end games whose result they know
+        if (System.getProperty("chess.tablebases") != null) {
+            try {
+                Tablebase.load(System.getProperty("chess.tablebases"));
+
+            } catch (IOException e) {
+                System.out.println("The tablebases can't be used: " + e.getMessage());
+            }
+        }
+
         this.printMenu();
 
         while (true) {
@@ -27,6 +94,15 @@ public class Chess {
                 this.endGame();
 
             } else if (choice.equals("p")) {
+                this.computer = null;
+                this.playGame();
+
+            } else if (choice.equals("w")) {
+                this.computer = Chess.PLAYER2;
+                this.playGame();
+
+            } else if (choice.equals("b")) {
+                this.computer = Chess.PLAYER1;
                 this.playGame();
 
             } else {
@@ -37,6 +113,7 @@ public class Chess {
 
     void playGame() {
         this.currentPlayer = Chess.PLAYER1;
+        this.gameOver = false;
         boolean inGameScreen = true;
         boolean nextPlayersChoice;
         String choice;
@@ -49,6 +126,14 @@ public class Chess {
             nextPlayersChoice = false;
 
             while (!nextPlayersChoice) {
+                if (this.currentPlayer == this.computer && !this.gameOver) {
+                    if (this.playComputerMove()) {
+                        nextPlayersChoice = this.endTurn();
+                    }
+
+                    continue;
+                }
+
                 choice = this.input.nextLine();
 
                 if (choice.equals("m")) {
@@ -75,25 +160,101 @@ public class Chess {
                     this.currentPlayer = Chess.PLAYER1;
                     this.gameOver = false;
 
+                } else if (choice.equals("h")) {
+                    this.printHint();
+
                 } else if (this.validInput(choice)) {
-                    nextPlayersChoice = true;
+                    nextPlayersChoice = this.endTurn();
+                }
+            }
+        }
+    }
 
-                    if (Chess.PLAYER1.inCheck() || Chess.PLAYER2.inCheck()) {
-                        if (this.chessboard.checkmate(this.currentPlayer)) {
-                            this.printOppositeBoards();
-                            this.printGameOptions();
-                            System.out.println("CHECKMATE! " + this.currentPlayer.getID().toUpperCase() + " WINS!");
-                            Chess.PLAYER1.reset();;
-                            Chess.PLAYER2.reset();;
-                            this.gameOver = true;
-                            nextPlayersChoice = false;
-                        }
-                    }
+    // Checks whether the move just played won the game and hands the turn over. Returns "false" if the game is
+    // over, so the next input is only a menu choice
+    boolean endTurn() {
+        boolean nextPlayersChoice = true;
 
-                    this.currentPlayer = this.switchPlayer();
-                }
+        if (Chess.PLAYER1.inCheck() || Chess.PLAYER2.inCheck()) {
+            if (this.chessboard.checkmate(this.currentPlayer)) {
+                this.printOppositeBoards();
+                this.printGameOptions();
+                System.out.println("CHECKMATE! " + this.currentPlayer.getID().toUpperCase() + " WINS!");
+                Chess.PLAYER1.reset();;
+                Chess.PLAYER2.reset();;
+                this.gameOver = true;
+                nextPlayersChoice = false;
             }
         }
+
+        if (!this.gameOver && this.adjudicate()) {
+            nextPlayersChoice = false;
+        }
+
+        this.currentPlayer = this.switchPlayer();
+
+        return nextPlayersChoice;
+    }
+
+    // Ends the game if the tablebases know how it ends with best play, and returns "true" if they did. The
+    // current player has just moved
+    boolean adjudicate() {
+        int found = Tablebase.probe(this.chessboard);
+        ChessPlayer winner;
+
+        if (found == Tablebase.NONE) {
+            return false;
+        }
+
+        this.printOppositeBoards();
+        this.printGameOptions();
+
+        if (Tablebase.result(found) == Tablebase.DRAW) {
+            System.out.println("DRAW! The tablebase shows neither player can win");
+
+        } else {
+            winner = Tablebase.result(found) == Tablebase.WIN ? this.switchPlayer() : this.currentPlayer;
+            System.out.println(winner.getID().toUpperCase() + " WINS! The tablebase shows mate in "
+                + (Tablebase.plies(found) + 1) / 2);
+        }
+
+        Chess.PLAYER1.reset();
+        Chess.PLAYER2.reset();
+        this.gameOver = true;
+
+        return true;
+    }
+
+    // Lets the engine choose a move for the current player and plays it the way typed input would be. Returns
+    // "false" if there was no move to play
+    boolean playComputerMove() {
+        int move;
+        String ID;
+
+        System.out.println(this.currentPlayer.getID() + " is thinking...");
+        move = this.engine().think(this.chessboard, Chess.ENGINE_MILLIS, Engine.MAX_DEPTH);
+
+        if (move == Move.NONE) {
+            System.out.println("STALEMATE! " + this.currentPlayer.getID() + " has no legal moves");
+            this.gameOver = true;
+            return false;
+        }
+
+        ID = this.chessboard.getID(Position.of(Move.from(move)));
+
+        // The engine only plays legal moves, so the pieces turning one down means they've lost track of the board
+        if (!this.chessboard.canMovePiece(ID, Position.of(Move.to(move)))) {
+            throw new IllegalStateException("The engine's move " + ID + " " + Move.name(move)
+                + " was rejected in the position " + this.chessboard.toFen());
+        }
+
+        System.out.println(this.currentPlayer.getID() + " plays " + ID + " " + Move.name(move));
+
+        if (this.chessboard.canPromote(ID)) {
+            this.chessboard.promote(ID, Chess.PROMOTIONS[Move.promotion(move) - ChessPiece.KNIGHT]);
+        }
+
+        return true;
     }
 
     void endGame() {
@@ -110,6 +271,74 @@ public class Chess {
         }
     }
     
+    // Prints moves for the current player the way they're typed: the book moves with their share of the book's
+    // weight, or else the move the engine would play
+    void printHint() {
+        MoveList moves = new MoveList();
+        int[] weights = new int[MoveList.CAPACITY];
+        int total = this.book == null ? 0 : this.book.lookup(this.chessboard, moves, weights);
+        int move;
+
+        if (this.gameOver) {
+            System.out.println("The game is over! Enter 'm', 'r' or 'q'");
+            return;
+        }
+
+        this.printHanging();
+
+        if (moves.size() > 0) {
+            System.out.println("Book moves:");
+
+            for (int i = 0; i < moves.size(); i++) {
+                System.out.printf("  %s (%s, %d%%)%n", this.inputFor(moves.get(i)), Move.name(moves.get(i)),
+                    total == 0 ? 100 / moves.size() : 100 * weights[i] / total);
+            }
+
+            return;
+        }
+
+        this.engine().setOutput(null);
+        move = this.engine().think(this.chessboard, Chess.HINT_MILLIS, Engine.MAX_DEPTH);
+        this.engine().setOutput(System.out);
+
+        if (move != Move.NONE) {
+            System.out.println("Hint: " + this.inputFor(move) + " (" + Move.name(move) + ")");
+        }
+    }
+
+    // Warns about the current player's pieces the other player can win material by taking
+    void printHanging() {
+        long hanging = this.chessboard.hanging(this.chessboard.getSideToMove());
+        StringBuilder pieces = new StringBuilder();
+
+        while (hanging != 0) {
+            pieces.append(' ').append(this.chessboard.getID(Position.of(Bitboard.first(hanging))));
+            hanging &= hanging - 1;
+        }
+
+        if (pieces.length() > 0) {
+            System.out.println("Hanging:" + pieces);
+        }
+    }
+
+    // Returns the move as it would be typed: the piece's ID, then the destination row and column
+    String inputFor(int move) {
+        Position dest = Position.of(Move.to(move));
+
+        return this.chessboard.getID(Position.of(Move.from(move))) + " " + dest.getRow() + " " + dest.getCol();
+    }
+
+    // The engine is only created once something needs it, since its table takes memory
+    private Engine engine() {
+        if (this.engine == null) {
+            this.engine = new Engine(new TranspositionTable(Integer.getInteger("engine.hash", 16)),
+                Integer.getInteger("engine.threads", 1));
+            this.engine.setBook(this.book);
+        }
+
+        return this.engine;
+    }
+
     boolean isPlayersPiece(String ID) {
         return this.chessboard.getPiece(ID).getOwner() == this.currentPlayer;
     }
@@ -131,7 +360,7 @@ public class Chess {
             ID = input.substring(0, 2);
             row = Integer.parseInt(input.substring(3, 4));
             col = Integer.parseInt(input.substring(5));
-            dest = new Position(row, col);
+            dest = Position.of(row, col);
             correctFormat = input.substring(2, 3).equals(" ") && input.substring(4, 5).equals(" ")
                 && input.length() == 6;
             correctPiece = this.chessboard.containsPiece(ID)
@@ -196,13 +425,13 @@ public class Chess {
             System.out.print(row + " |");
 
             for (int col = 1; col <= Chessboard.WIDTH; col++) {
-                System.out.print(this.chessboard.getID(new Position(row, col)) + "|");
+                System.out.print(this.chessboard.getID(Position.of(row, col)) + "|");
             }
 
             System.out.print("                  " + (Chessboard.HEIGHT - row + 1) + " |");
 
             for (int col = Chessboard.WIDTH; col >= 1; col--) {
-                System.out.print(this.chessboard.getID(new Position(Chessboard.HEIGHT - row + 1, col)) + "|");
+                System.out.print(this.chessboard.getID(Position.of(Chessboard.HEIGHT - row + 1, col)) + "|");
             }
 
             System.out.println();
@@ -217,6 +446,7 @@ public class Chess {
         System.out.println("Enter 'm' to return to the main menu");
         System.out.println("Enter 'q' to quit the game");
         System.out.println("Enter 'r' to restart the game");
+        System.out.println("Enter 'h' for a hint");
     }
 
     void printPlayerState() {
@@ -244,6 +474,8 @@ public class Chess {
         System.out.println();
         System.out.println("                          Enter 'p' to play the game");
         System.out.println();
+        System.out.println("                 Enter 'w' or 'b' to play White or Black against the computer");
+        System.out.println();
         System.out.println("                          Enter 'q' to quit the game");
         System.out.println();
         System.out.println();
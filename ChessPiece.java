@@ -1,6 +1,15 @@
 import java.util.HashSet;
 
 abstract class ChessPiece {
+    // Piece types, used to index the bitboards of the chessboard
+    static final int PAWN = 0;
+    static final int KNIGHT = 1;
+    static final int BISHOP = 2;
+    static final int ROOK = 3;
+    static final int QUEEN = 4;
+    static final int KING = 5;
+    static final int TYPES = 6;
+
     private final ChessPlayer owner;
     private Position pos;
 
@@ -18,12 +27,89 @@ abstract class ChessPiece {
         return this.pos;
     }
 
+    void setPos(Position pos) {
+        this.pos = pos;
+    }
+
+    // Returns the type of the piece, which is one of the constants above
+    abstract int getType();
+
     // Returns "true" if the move was successful
     abstract boolean move(Chessboard chessboard, Position dest);
 
     // Returns "true" if the piece can attack the king
-    abstract boolean targetsKing(Chessboard chessboard);
+    boolean targetsKing(Chessboard chessboard) {
+        int king = chessboard.kingSquare(1 - Chessboard.side(this.owner));
+
+        return king != Chessboard.NO_SQUARE && Bitboard.contains(chessboard.getAttacks(this.pos.getSquare()), king);
+    }
+
+    // Returns the set of possible moves by the piece. This adapts "Chessboard.generateMoves()" for callers that want
+    // positions, so anything that runs often should use a move list instead
+    HashSet<Position> possibleMoves(Chessboard chessboard) {
+        return chessboard.possibleMoves(this.pos.getSquare());
+    }
+
+    // Returns the squares a single step away. Only used to fill the tables of the leaping pieces
+    static long stepAttacks(int square, int[][] steps) {
+        int row = Bitboard.row(square);
+        int col = Bitboard.col(square);
+        long attacks = Bitboard.EMPTY;
+
+        for (int[] step : steps) {
+            int toRow = row + step[0];
+            int toCol = col + step[1];
+
+            if (toRow >= 1 && toRow <= Chessboard.HEIGHT && toCol >= 1 && toCol <= Chessboard.WIDTH) {
+                attacks |= Bitboard.bit(Bitboard.square(toRow, toCol));
+            }
+        }
+
+        return attacks;
+    }
+
+    // Returns the squares along each direction up to and including the first occupied one
+    static long slideAttacks(int square, int[][] directions, long occupied) {
+        int row = Bitboard.row(square);
+        int col = Bitboard.col(square);
+        long attacks = Bitboard.EMPTY;
+
+        for (int[] direction : directions) {
+            int toRow = row + direction[0];
+            int toCol = col + direction[1];
+
+            while (toRow >= 1 && toRow <= Chessboard.HEIGHT && toCol >= 1 && toCol <= Chessboard.WIDTH) {
+                long bit = Bitboard.bit(Bitboard.square(toRow, toCol));
+
+                attacks |= bit;
+
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+
+                toRow += direction[0];
+                toCol += direction[1];
+            }
+        }
+
+        return attacks;
+    }
+
+    // Adds a move to each of the target squares that doesn't hold a friendly piece
+    static void addMoves(Chessboard chessboard, int from, long targets, MoveList moves, int kind) {
+        int side = chessboard.pieceAt(from) / ChessPiece.TYPES;
+        long captures = MoveList.wanted(kind, true) ? targets & chessboard.getPieces(1 - side) : Bitboard.EMPTY;
+        long quiets = MoveList.wanted(kind, false) ? targets & ~chessboard.getOccupied() : Bitboard.EMPTY;
+
+        while (captures != 0) {
+            moves.add(Move.encode(from, Bitboard.first(captures), Move.CAPTURE));
+            captures &= captures - 1;
+        }
+
+        while (quiets != 0) {
+            moves.add(Move.encode(from, Bitboard.first(quiets), Move.QUIET));
+            quiets &= quiets - 1;
+        }
+    }
 
-    // Returns the set of possible moves by the piece
-    abstract HashSet<Position> possibleMoves(Chessboard chessboard);
 }
\ No newline at end of file
@@ -1,18 +1,21 @@
+import java.util.Arrays;
+
 class ChessPlayer {
     private final String ID;
-    private int numQueens;
-    private int numRooks;
-    private int numKnights;
-    private int numBishops;
+
+    // The side ("Chessboard.WHITE" or "Chessboard.BLACK") the player's pieces belong to
+    private final int side;
+
+    // How many pieces of each type ("ChessPiece.PAWN" to "ChessPiece.KING") the player has on the board. The board
+    // keeps them up to date as pieces are placed and lifted, and they tell it how far the game is from the endgame
+    private final int[] counts;
     private boolean inCheck;
 
-    ChessPlayer(String ID) {
+    ChessPlayer(String ID, int side) {
         super();
         this.ID = ID;
-        this.numQueens = 1;
-        this.numRooks = 2;
-        this.numKnights = 2;
-        this.numBishops = 2;
+        this.side = side;
+        this.counts = new int[ChessPiece.TYPES];
         this.inCheck = false;
     }
 
@@ -20,36 +23,44 @@ class ChessPlayer {
         return this.ID;
     }
 
+    int getSide() {
+        return this.side;
+    }
+
     int getNumQueens() {
-        return this.numQueens;
+        return this.counts[ChessPiece.QUEEN];
     }
 
     int getNumRooks() {
-        return this.numRooks;
+        return this.counts[ChessPiece.ROOK];
     }
 
     int getNumKnights() {
-        return this.numKnights;
+        return this.counts[ChessPiece.KNIGHT];
     }
 
     int getNumBishops() {
-        return this.numBishops;
+        return this.counts[ChessPiece.BISHOP];
     }
 
-    void incrementQueens() {
-        this.numQueens++;
+    int getNumPawns() {
+        return this.counts[ChessPiece.PAWN];
     }
 
-    void incrementRooks() {
-        this.numRooks++;
+    int getNumPieces(int type) {
+        return this.counts[type];
     }
 
-    void incrementKnights() {
-        this.numKnights++;
+    void pieceAdded(int type) {
+        this.counts[type]++;
     }
 
-    void incrementBishops() {
-        this.numBishops++;
+    void pieceRemoved(int type) {
+        this.counts[type]--;
+    }
+
+    void clearPieces() {
+        Arrays.fill(this.counts, 0);
     }
 
     void checked() {
@@ -64,11 +75,14 @@ class ChessPlayer {
         return this.inCheck;
     }
 
+    // Takes over the piece counts and check flag of the other player
+    void copyFrom(ChessPlayer other) {
+        System.arraycopy(other.counts, 0, this.counts, 0, ChessPiece.TYPES);
+        this.inCheck = other.inCheck;
+    }
+
+    // The piece counts follow the board, which resets them when it's cleared
     void reset() {
-        this.numQueens = 1;
-        this.numRooks = 2;
-        this.numKnights = 2;
-        this.numBishops = 2;
         this.inCheck = false;
     }
 }
\ No newline at end of file
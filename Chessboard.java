@@ -1,126 +1,1515 @@
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.concurrent.ConcurrentHashMap;
 
 class Chessboard {
     public static final int HEIGHT = 8;
     public static final int WIDTH = 8;
+    public static final int SQUARES = HEIGHT * WIDTH;
+    static final int WHITE = 0;
+    static final int BLACK = 1;
+    static final int EMPTY = -1;
+    static final int NO_SQUARE = 64;
+    static final int MAX_PLY = 256;
+
+    // The moves and attack maps "makeMove()" can save before the buffers for them have to grow. They start small so
+    // that a new board, like one made by "copy()", is cheap
+    private static final int HISTORY_CAPACITY = 32;
+    private static final int SAVED_CAPACITY = 4 * Chessboard.SQUARES;
+
+    // No square sees more captures than there are pieces
+    private static final int MAX_EXCHANGE = 32;
     private static final String VACANT = "__";
 
-    // A map of all positions to their corresponding pieces or spaces on the chessboard
-    private ConcurrentHashMap<Position, String> positions;
+    // The letters of the piece types in FEN, indexed by type. White pieces are upper case
+    private static final String FEN_PIECES = "pnbrqk";
+    static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // Castling rights
+    static final int WHITE_KINGSIDE = 1;
+    static final int WHITE_QUEENSIDE = 2;
+    static final int BLACK_KINGSIDE = 4;
+    static final int BLACK_QUEENSIDE = 8;
+    static final int ALL_CASTLING = 15;
+
+    // The castling rights that survive a move to or from each square
+    private static final int[] CASTLING_MASK = new int[Chessboard.SQUARES];
+
+    static {
+        Arrays.fill(Chessboard.CASTLING_MASK, Chessboard.ALL_CASTLING);
+        Chessboard.CASTLING_MASK[Bitboard.square(1, 1)] &= ~Chessboard.WHITE_QUEENSIDE;
+        Chessboard.CASTLING_MASK[Bitboard.square(1, 5)] &= ~(Chessboard.WHITE_KINGSIDE | Chessboard.WHITE_QUEENSIDE);
+        Chessboard.CASTLING_MASK[Bitboard.square(1, 8)] &= ~Chessboard.WHITE_KINGSIDE;
+        Chessboard.CASTLING_MASK[Bitboard.square(8, 1)] &= ~Chessboard.BLACK_QUEENSIDE;
+        Chessboard.CASTLING_MASK[Bitboard.square(8, 5)] &= ~(Chessboard.BLACK_KINGSIDE | Chessboard.BLACK_QUEENSIDE);
+        Chessboard.CASTLING_MASK[Bitboard.square(8, 8)] &= ~Chessboard.BLACK_KINGSIDE;
+    }
+
+    // The squares occupied by each piece type of each side, indexed by "side * ChessPiece.TYPES + type"
+    private long[] pieceBoards;
+
+    // The squares occupied by each side
+    private long[] sideBoards;
+
+    // The squares occupied by any piece
+    private long occupied;
+
+    // The code ("side * ChessPiece.TYPES + type") of the piece on each square, or EMPTY
+    private int[] mailbox;
+
+    // The squares attacked by the piece on each square
+    private long[] attackMaps;
+
+    // The squares attacked by each side, rebuilt from "attackMaps" when the side's bit of "staleSides" is set
+    private long[] sideAttacks;
+    private int staleSides;
+
+    // The squares whose piece changed since "attackMaps" was last brought up to date
+    private long changedSquares;
+
+    // The attack maps overwritten by each "makeMove()", so that "unmakeMove()" can put them back without
+    // recomputing them. "savedStarts" holds where each move's entries begin
+    private int[] savedSquares;
+    private long[] savedMaps;
+    private int[] savedStarts;
+    private int savedCount;
+
+    private int castlingRights;
+
+    // The square a pawn skipped over with its last move, or NO_SQUARE
+    private int enPassantSquare;
+
+    private int sideToMove;
+
+    // The Zobrist key of the position, kept up to date by every change to the board (see "Zobrist")
+    private long key;
+
+    // The key of the Pawns alone, which only changes when a Pawn moves, is captured or is promoted. Pawn structure
+    // is cached by it (see "PawnTable")
+    private long pawnKey;
+
+    // The material and piece-square scores of the pieces from White's point of view, kept up to date the same way
+    // (see "Evaluation")
+    private int middlegame;
+    private int endgame;
+
+    // One record per move made by "makeMove()": the move in bits 0-15, the captured piece code + 1 in bits 16-19,
+    // the castling rights in bits 20-23, the en passant square in bits 24-30 and the moved piece code in bits 31-34
+    private long[] undoStack;
+    private int undoCount;
+
+    // The key before each move made by "makeMove()"
+    private long[] keyStack;
+
+    // The players owning the pieces of each side. Each board has its own, so that several boards can be played on
+    // at once without sharing check flags
+    private ChessPlayer[] players;
+
+    // The piece and ID standing on each square, or null if the square is vacant
+    private ChessPiece[] squares;
+    private String[] ids;
+
+    // A map of all IDs to their corresponding pieces on the chessboard
+    private ConcurrentHashMap<String, ChessPiece> pieces;
+
+    // A map of all pieces that can escape a check to their corresponding moves that escape the check
+    private ConcurrentHashMap<String, HashSet<Position>> checkEscapes;
+
+    // A buffer reused by "possibleMoves()" and "checkmate()"
+    private MoveList scratchMoves;
+
+    // What "keepLegal()" last worked out, for the position with key "legalKey": the pieces giving check, the pinned
+    // pieces and the squares the King can't step to. A search filters the moves of a position in several batches,
+    // and this way works them out once
+    private long legalKey;
+    private long legalCheckers;
+    private long legalPinned;
+    private long legalDanger;
+
+    // The running gains of "see()"
+    private int[] exchangeGains;
+
+    // The current Pawn vulnerable to "en passant" capture
+    private Pawn enPassantPawn;
+
+    // Set when the position was filled in without piece objects, by "loadFen()" or "copyFrom()". They are only
+    // created once something asks for them, since searches and perft on a copy never do
+    private boolean piecesStale;
+
+    Chessboard() {
+        this(new ChessPlayer("Player 1", Chessboard.WHITE), new ChessPlayer("Player 2", Chessboard.BLACK));
+    }
+
+    // The players' piece counts start over, since the board keeps them from now on
+    Chessboard(ChessPlayer white, ChessPlayer black) {
+        super();
+        this.players = new ChessPlayer[] {white, black};
+        white.clearPieces();
+        black.clearPieces();
+        this.pieceBoards = new long[2 * ChessPiece.TYPES];
+        this.sideBoards = new long[2];
+        this.occupied = Bitboard.EMPTY;
+        this.mailbox = new int[Chessboard.SQUARES];
+        Arrays.fill(this.mailbox, Chessboard.EMPTY);
+        this.attackMaps = new long[Chessboard.SQUARES];
+        this.sideAttacks = new long[2];
+        this.staleSides = 0;
+        this.changedSquares = Bitboard.EMPTY;
+        this.savedSquares = new int[Chessboard.SAVED_CAPACITY];
+        this.savedMaps = new long[Chessboard.SAVED_CAPACITY];
+        this.savedStarts = new int[Chessboard.HISTORY_CAPACITY];
+        this.savedCount = 0;
+        this.castlingRights = 0;
+        this.enPassantSquare = Chessboard.NO_SQUARE;
+        this.sideToMove = Chessboard.WHITE;
+        this.key = 0L;
+        this.pawnKey = 0L;
+        this.middlegame = 0;
+        this.endgame = 0;
+        this.undoStack = new long[Chessboard.HISTORY_CAPACITY];
+        this.undoCount = 0;
+        this.keyStack = new long[Chessboard.HISTORY_CAPACITY];
+        this.squares = new ChessPiece[Chessboard.SQUARES];
+        this.ids = new String[Chessboard.SQUARES];
+        this.pieces = new ConcurrentHashMap<String, ChessPiece>();
+        this.checkEscapes = new ConcurrentHashMap<String, HashSet<Position>>();
+        this.scratchMoves = null;
+        this.exchangeGains = new int[Chessboard.MAX_EXCHANGE];
+        this.enPassantPawn = null;
+        this.piecesStale = false;
+    }
+
+    void initialize() {
+        this.initializePieces();
+        this.setCastlingRights(Chessboard.ALL_CASTLING);
+        this.verifyState();
+    }
+
+    // Replaces the position with the one described by a FEN string. The piece objects are created when they're
+    // first needed (see "createPieces()")
+    void loadFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        String[] rows;
+        int rights = 0;
+
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("A FEN string needs at least 4 fields: " + fen);
+        }
+
+        rows = fields[0].split("/");
+
+        if (rows.length != Chessboard.HEIGHT) {
+            throw new IllegalArgumentException("A FEN string needs " + Chessboard.HEIGHT + " rows: " + fen);
+        }
+
+        this.clearBoard();
+
+        for (int row = 1; row <= Chessboard.HEIGHT; row++) {
+            String text = rows[Chessboard.HEIGHT - row];
+            int col = 1;
+
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                int type = Chessboard.FEN_PIECES.indexOf(Character.toLowerCase(c));
+
+                if (Character.isDigit(c)) {
+                    col += c - '0';
+
+                } else if (type >= 0 && col <= Chessboard.WIDTH) {
+                    int side = Character.isUpperCase(c) ? Chessboard.WHITE : Chessboard.BLACK;
+
+                    this.addPiece(Bitboard.square(row, col), side * ChessPiece.TYPES + type);
+                    col++;
+
+                } else {
+                    throw new IllegalArgumentException("Unexpected '" + c + "' in the FEN string: " + fen);
+                }
+            }
+
+            if (col != Chessboard.WIDTH + 1) {
+                throw new IllegalArgumentException("Row " + row + " doesn't have " + Chessboard.WIDTH + " spaces: "
+                    + fen);
+            }
+        }
+
+        this.updateAttacks(false);
+        this.piecesStale = true;
+
+        if (!fields[1].equals("w") && !fields[1].equals("b")) {
+            throw new IllegalArgumentException("The side to move must be 'w' or 'b': " + fen);
+        }
+
+        this.setSideToMove(fields[1].equals("w") ? Chessboard.WHITE : Chessboard.BLACK);
+
+        for (char c : fields[2].toCharArray()) {
+            int right = "KQkq".indexOf(c);
+
+            if (right >= 0) {
+                rights |= 1 << right;
+
+            } else if (c != '-') {
+                throw new IllegalArgumentException("Unexpected castling right '" + c + "': " + fen);
+            }
+        }
+
+        this.setCastlingRights(rights);
+
+        if (!fields[3].equals("-")) {
+            int square;
+
+            if (fields[3].length() != 2 || fields[3].charAt(0) < 'a' || fields[3].charAt(0) > 'h'
+                || (fields[3].charAt(1) != '3' && fields[3].charAt(1) != '6')) {
+                throw new IllegalArgumentException("Invalid en passant square '" + fields[3] + "': " + fen);
+            }
+
+            square = Bitboard.square(fields[3].charAt(1) - '0', fields[3].charAt(0) - 'a' + 1);
+            this.setEnPassantSquare(square);
+        }
+
+        this.verifyState();
+    }
+
+    // Returns the position as a FEN string. The move counters aren't tracked, so they're always "0 1"
+    String toFen() {
+        StringBuilder fen = new StringBuilder();
+
+        for (int row = Chessboard.HEIGHT; row >= 1; row--) {
+            int vacant = 0;
+
+            for (int col = 1; col <= Chessboard.WIDTH; col++) {
+                int code = this.mailbox[Bitboard.square(row, col)];
+                char c;
+
+                if (code == Chessboard.EMPTY) {
+                    vacant++;
+                    continue;
+                }
+
+                if (vacant > 0) {
+                    fen.append(vacant);
+                    vacant = 0;
+                }
+
+                c = Chessboard.FEN_PIECES.charAt(code % ChessPiece.TYPES);
+                fen.append(code / ChessPiece.TYPES == Chessboard.WHITE ? Character.toUpperCase(c) : c);
+            }
+
+            if (vacant > 0) {
+                fen.append(vacant);
+            }
+
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(this.sideToMove == Chessboard.WHITE ? " w " : " b ");
+
+        for (int right = 0; right < 4; right++) {
+            if ((this.castlingRights & (1 << right)) != 0) {
+                fen.append("KQkq".charAt(right));
+            }
+        }
+
+        if (this.castlingRights == 0) {
+            fen.append('-');
+        }
+
+        fen.append(' ');
+        fen.append(this.enPassantSquare == Chessboard.NO_SQUARE ? "-" : Move.squareName(this.enPassantSquare));
+        fen.append(" 0 1");
+
+        return fen.toString();
+    }
+
+    // Returns an independent board with the same position, castling rights, "en passant" square, side to move and
+    // player state. The copy starts without any moves to unmake
+    Chessboard copy() {
+        Chessboard copy = new Chessboard();
+
+        copy.copyFrom(this);
+
+        return copy;
+    }
+
+    // Turns this board into a copy of the other one without allocating, so a board can be reused for one position
+    // after another. The copy's piece objects are created from its bitboards when they're first needed, keeping the
+    // IDs of the other board when its pieces match its bitboards
+    void copyFrom(Chessboard other) {
+        System.arraycopy(other.pieceBoards, 0, this.pieceBoards, 0, this.pieceBoards.length);
+        System.arraycopy(other.sideBoards, 0, this.sideBoards, 0, this.sideBoards.length);
+        System.arraycopy(other.mailbox, 0, this.mailbox, 0, Chessboard.SQUARES);
+        System.arraycopy(other.attackMaps, 0, this.attackMaps, 0, Chessboard.SQUARES);
+        System.arraycopy(other.sideAttacks, 0, this.sideAttacks, 0, this.sideAttacks.length);
+        this.occupied = other.occupied;
+        this.staleSides = other.staleSides;
+        this.changedSquares = other.changedSquares;
+        this.castlingRights = other.castlingRights;
+        this.enPassantSquare = other.enPassantSquare;
+        this.sideToMove = other.sideToMove;
+        this.key = other.key;
+        this.pawnKey = other.pawnKey;
+        this.middlegame = other.middlegame;
+        this.endgame = other.endgame;
+        this.undoCount = 0;
+        this.savedCount = 0;
+
+        // While moves are made, the other board's pieces still describe the position before them
+        if (other.undoCount == 0) {
+            System.arraycopy(other.ids, 0, this.ids, 0, Chessboard.SQUARES);
+
+        } else {
+            Arrays.fill(this.ids, null);
+        }
+
+        Arrays.fill(this.squares, null);
+        this.pieces.clear();
+        this.checkEscapes.clear();
+        this.enPassantPawn = null;
+        this.piecesStale = true;
+        this.players[Chessboard.WHITE].copyFrom(other.players[Chessboard.WHITE]);
+        this.players[Chessboard.BLACK].copyFrom(other.players[Chessboard.BLACK]);
+    }
+
+    private void ensurePieces() {
+        if (this.piecesStale) {
+            this.createPieces();
+        }
+    }
+
+    // Creates a piece object for every piece on the bitboards. Pieces without an ID are named like the ones of
+    // "initializePieces()": Rooks in a corner are "R1" or "R2" and the rest are numbered from the bottom left
+    private void createPieces() {
+        int[] counts = new int[2 * ChessPiece.TYPES];
+        long remaining = this.occupied;
+
+        this.piecesStale = false;
+
+        while (remaining != 0) {
+            int square = Bitboard.first(remaining);
+            int code = this.mailbox[square];
+            int side = code / ChessPiece.TYPES;
+            int type = code % ChessPiece.TYPES;
+            ChessPiece piece = this.createPiece(side, type, Position.of(square));
+            String ID = this.ids[square];
+
+            if (ID == null) {
+                ID = Chessboard.pieceID(side, type, square, counts);
+            }
+
+            this.squares[square] = piece;
+            this.ids[square] = ID;
+            this.pieces.put(ID, piece);
+
+            // Kings and Rooks on a square whose castling rights are still held can castle
+            if (type == ChessPiece.KING) {
+                ((King) piece).setCanCastle((this.castlingRights & ~Chessboard.CASTLING_MASK[square]) != 0);
+
+            } else if (type == ChessPiece.ROOK) {
+                ((Rook) piece).setCanCastle((this.castlingRights & ~Chessboard.CASTLING_MASK[square]) != 0);
+            }
+
+            remaining &= remaining - 1;
+        }
+
+        // Mark the Pawn that skipped over the "en passant" square too, so that a game continued from here allows
+        // the capture
+        if (this.enPassantSquare != Chessboard.NO_SQUARE) {
+            int behind = this.enPassantSquare + (this.sideToMove == Chessboard.WHITE ? -Chessboard.WIDTH : Chessboard.WIDTH);
+            ChessPiece pawn = this.squares[behind];
+
+            if (pawn != null && pawn.getType() == ChessPiece.PAWN) {
+                ((Pawn) pawn).enPassantSwitch();
+                this.setEnPassantPawn((Pawn) pawn);
+            }
+        }
+    }
+
+    // Returns the ID of a piece of the type on the square, counting the pieces named so far in "counts"
+    private static String pieceID(int side, int type, int square, int[] counts) {
+        int home = side == Chessboard.WHITE ? 1 : Chessboard.HEIGHT;
+        int count;
+        String ID;
+
+        if (type == ChessPiece.ROOK && Bitboard.row(square) == home && Bitboard.col(square) == 1) {
+            ID = "R1";
+
+        } else if (type == ChessPiece.ROOK && Bitboard.row(square) == home && Bitboard.col(square) == Chessboard.WIDTH) {
+            ID = "R2";
+
+        } else {
+            count = ++counts[side * ChessPiece.TYPES + type];
+
+            if (type == ChessPiece.KING) {
+                ID = count == 1 ? "Ki" : "Ki" + count;
+
+            } else if (type == ChessPiece.QUEEN && count == 1) {
+                ID = "Qu";
+
+            } else if (type == ChessPiece.ROOK) {
+                ID = "R" + (count + 2);
+
+            } else {
+                ID = "PKBRQ".charAt(type) + String.valueOf(count);
+            }
+        }
+
+        return side == Chessboard.WHITE ? ID : ID.toLowerCase();
+    }
+
+    private ChessPiece createPiece(int side, int type, Position pos) {
+        ChessPlayer owner = this.players[side];
+
+        switch (type) {
+            case ChessPiece.PAWN:
+                return new Pawn(owner, pos);
+
+            case ChessPiece.KNIGHT:
+                return new Knight(owner, pos);
+
+            case ChessPiece.BISHOP:
+                return new Bishop(owner, pos);
+
+            case ChessPiece.ROOK:
+                return new Rook(owner, pos);
+
+            case ChessPiece.QUEEN:
+                return new Queen(owner, pos);
+
+            default:
+                return new King(owner, pos);
+        }
+    }
+
+    void clearBoard() {
+        Arrays.fill(this.pieceBoards, Bitboard.EMPTY);
+        Arrays.fill(this.sideBoards, Bitboard.EMPTY);
+        this.occupied = Bitboard.EMPTY;
+        Arrays.fill(this.mailbox, Chessboard.EMPTY);
+        Arrays.fill(this.attackMaps, Bitboard.EMPTY);
+        Arrays.fill(this.sideAttacks, Bitboard.EMPTY);
+        this.staleSides = 0;
+        this.changedSquares = Bitboard.EMPTY;
+        this.castlingRights = 0;
+        this.enPassantSquare = Chessboard.NO_SQUARE;
+        this.sideToMove = Chessboard.WHITE;
+        this.key = 0L;
+        this.pawnKey = 0L;
+        this.middlegame = 0;
+        this.endgame = 0;
+        this.players[Chessboard.WHITE].clearPieces();
+        this.players[Chessboard.BLACK].clearPieces();
+        this.undoCount = 0;
+        this.savedCount = 0;
+        Arrays.fill(this.squares, null);
+        Arrays.fill(this.ids, null);
+        this.pieces.clear();
+        this.checkEscapes.clear();
+        this.enPassantPawn = null;
+        this.piecesStale = false;
+    }
+
+    static int side(ChessPlayer player) {
+        return player.getSide();
+    }
+
+    ChessPlayer getPlayer(int side) {
+        return this.players[side];
+    }
+
+    ChessPlayer getOpponent(ChessPlayer player) {
+        return this.players[1 - player.getSide()];
+    }
+
+    long getPieces(int side, int type) {
+        return this.pieceBoards[side * ChessPiece.TYPES + type];
+    }
+
+    long getPieces(int side) {
+        return this.sideBoards[side];
+    }
+
+    long getOccupied() {
+        return this.occupied;
+    }
+
+    // Returns the code of the piece on the square, or EMPTY
+    int pieceAt(int square) {
+        return this.mailbox[square];
+    }
+
+    // Returns the squares attacked by the piece on the square
+    long getAttacks(int square) {
+        return this.attackMaps[square];
+    }
+
+    // Returns the squares attacked by any piece of the side
+    long getAttacked(int side) {
+        if ((this.staleSides & (1 << side)) != 0) {
+            long attacked = Bitboard.EMPTY;
+            long remaining = this.sideBoards[side];
+
+            while (remaining != 0) {
+                attacked |= this.attackMaps[Bitboard.first(remaining)];
+                remaining &= remaining - 1;
+            }
+
+            this.sideAttacks[side] = attacked;
+            this.staleSides &= ~(1 << side);
+        }
+
+        return this.sideAttacks[side];
+    }
+
+    // Returns the pieces of the other side that attack the side's King
+    long checkers(int side) {
+        int king = this.kingSquare(side);
+        long checkers = Bitboard.EMPTY;
+        long remaining = this.sideBoards[1 - side];
+
+        if (king == Chessboard.NO_SQUARE) {
+            return checkers;
+        }
+
+        while (remaining != 0) {
+            int square = Bitboard.first(remaining);
+
+            if (Bitboard.contains(this.attackMaps[square], king)) {
+                checkers |= Bitboard.bit(square);
+            }
+
+            remaining &= remaining - 1;
+        }
+
+        return checkers;
+    }
+
+    int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    int getEnPassantSquare() {
+        return this.enPassantSquare;
+    }
+
+    int getSideToMove() {
+        return this.sideToMove;
+    }
+
+    // Returns how far from the endgame the position is, from 0 with only Kings and Pawns left to
+    // "Evaluation.MAX_PHASE" with every piece of the starting position, going by the players' piece counts
+    int getPhase() {
+        return Evaluation.phase(this.players[Chessboard.WHITE]) + Evaluation.phase(this.players[Chessboard.BLACK]);
+    }
+
+    long getPawnKey() {
+        return this.pawnKey;
+    }
+
+    // Returns the static evaluation in centipawns from the side to move's point of view: the material and
+    // piece-square scores, blended between the middlegame and the endgame by the phase
+    int evaluate() {
+        return this.evaluate(null);
+    }
+
+    // Like "evaluate()", with the pawn structure and the Pawns sheltering each King added in. The pawn structure is
+    // looked up in the table, and left out without one
+    int evaluate(PawnTable pawns) {
+        int terms = pawns == null ? 0 : pawns.probe(this) + Evaluation.kingShelter(this);
+        int score = Evaluation.taper(this.middlegame + Evaluation.middlegameOf(terms),
+            this.endgame + Evaluation.endgameOf(terms), this.getPhase());
+
+        return this.sideToMove == Chessboard.WHITE ? score : -score;
+    }
+
+    long getKey() {
+        return this.key;
+    }
+
+    // Only call this when the piece exists
+    ChessPiece getPiece(String ID) {
+        this.ensurePieces();
+        return this.pieces.get(ID);
+    }
+
+    ChessPiece getPiece(Position pos) {
+        this.ensurePieces();
+        return this.onBoard(pos) ? this.squares[Bitboard.square(pos)] : null;
+    }
+
+    // If the added piece has the same position as another, then it will overwrite it
+    void spawnPiece(String ID, ChessPiece piece) {
+        int square = Bitboard.square(piece.getPos());
+
+        this.ensurePieces();
+
+        if (this.squares[square] != null) {
+            this.removePiece(square);
+        }
+
+        this.pieces.put(ID, piece);
+        this.place(square, ID, piece);
+        this.verifyState();
+    }
+
+    // If there's no piece to remove, then nothing happens
+    void removePiece(String ID) {
+        this.removePiece(this.getPiece(ID).getPos());
+    }
+
+    void removePiece(Position pos) {
+        if (this.onBoard(pos)) {
+            this.removePiece(Bitboard.square(pos));
+        }
+    }
+
+    private void removePiece(int square) {
+        this.ensurePieces();
+
+        if (this.squares[square] != null) {
+            this.pieces.remove(this.ids[square]);
+            this.lift(square);
+            this.setCastlingRights(this.castlingRights & Chessboard.CASTLING_MASK[square]);
+            this.verifyState();
+        }
+    }
+
+    // Only call this when the destination is vacant
+    void movePiece(String ID, Position dest) {
+        this.movePiece(this.getPiece(ID).getPos(), dest);
+    }
+
+    void movePiece(Position start, Position dest) {
+        int from = Bitboard.square(start);
+        int to = Bitboard.square(dest);
+        ChessPiece piece;
+        String ID;
+
+        this.ensurePieces();
+        piece = this.squares[from];
+        ID = this.ids[from];
+        this.lift(from);
+        piece.setPos(Position.of(to));
+        this.place(to, ID, piece);
+
+        this.setCastlingRights(this.castlingRights & Chessboard.CASTLING_MASK[from] & Chessboard.CASTLING_MASK[to]);
+
+        if (piece.getType() == ChessPiece.PAWN && Math.abs(to - from) == 2 * Chessboard.WIDTH) {
+            this.setEnPassantSquare((from + to) / 2);
+
+        } else {
+            this.setEnPassantSquare(Chessboard.NO_SQUARE);
+        }
+
+        this.setSideToMove(1 - Chessboard.side(piece.getOwner()));
+        this.verifyState();
+    }
+
+    private void setCastlingRights(int rights) {
+        this.key ^= Zobrist.castling(this.castlingRights) ^ Zobrist.castling(rights);
+        this.castlingRights = rights;
+    }
+
+    private void setEnPassantSquare(int square) {
+        this.key ^= Zobrist.enPassant(this.enPassantSquare) ^ Zobrist.enPassant(square);
+        this.enPassantSquare = square;
+    }
+
+    private void setSideToMove(int side) {
+        this.key ^= Zobrist.sideToMove(this.sideToMove) ^ Zobrist.sideToMove(side);
+        this.sideToMove = side;
+    }
+
+    // In debug mode, fails as soon as the incremental key or scores stop matching the position
+    private void verifyState() {
+        if (!Zobrist.DEBUG) {
+            return;
+        }
+
+        if (this.key != Zobrist.compute(this)) {
+            throw new IllegalStateException("The Zobrist key " + Long.toHexString(this.key)
+                + " doesn't match the position, which hashes to " + Long.toHexString(Zobrist.compute(this)));
+        }
+
+        if (this.pawnKey != Zobrist.computePawns(this)) {
+            throw new IllegalStateException("The pawn key " + Long.toHexString(this.pawnKey)
+                + " doesn't match the Pawns, which hash to " + Long.toHexString(Zobrist.computePawns(this)));
+        }
+
+        if (this.middlegame != Evaluation.compute(this, false) || this.endgame != Evaluation.compute(this, true)) {
+            throw new IllegalStateException("The scores " + this.middlegame + "/" + this.endgame
+                + " don't match the position, which scores " + Evaluation.compute(this, false) + "/"
+                + Evaluation.compute(this, true));
+        }
+    }
+
+    // Puts the piece on a vacant square of every board
+    private void place(int square, String ID, ChessPiece piece) {
+        this.addPiece(square, Chessboard.side(piece.getOwner()) * ChessPiece.TYPES + piece.getType());
+        this.updateAttacks(false);
+        this.squares[square] = piece;
+        this.ids[square] = ID;
+    }
+
+    // Takes the piece off the square of every board, but leaves it in the map of IDs
+    private void lift(int square) {
+        this.clearPiece(square);
+        this.updateAttacks(false);
+        this.squares[square] = null;
+        this.ids[square] = null;
+    }
+
+    private void addPiece(int square, int code) {
+        long bit = Bitboard.bit(square);
+
+        this.pieceBoards[code] |= bit;
+        this.sideBoards[code / ChessPiece.TYPES] |= bit;
+        this.occupied |= bit;
+        this.mailbox[square] = code;
+        this.changedSquares |= bit;
+        this.key ^= Zobrist.piece(code, square);
+        this.middlegame += Evaluation.middlegame(code, square);
+        this.endgame += Evaluation.endgame(code, square);
+        this.players[code / ChessPiece.TYPES].pieceAdded(code % ChessPiece.TYPES);
+
+        if (code % ChessPiece.TYPES == ChessPiece.PAWN) {
+            this.pawnKey ^= Zobrist.piece(code, square);
+        }
+    }
+
+    private void clearPiece(int square) {
+        long bit = Bitboard.bit(square);
+        int code = this.mailbox[square];
+
+        this.pieceBoards[code] &= ~bit;
+        this.sideBoards[code / ChessPiece.TYPES] &= ~bit;
+        this.occupied &= ~bit;
+        this.mailbox[square] = Chessboard.EMPTY;
+        this.changedSquares |= bit;
+        this.key ^= Zobrist.piece(code, square);
+        this.middlegame -= Evaluation.middlegame(code, square);
+        this.endgame -= Evaluation.endgame(code, square);
+        this.players[code / ChessPiece.TYPES].pieceRemoved(code % ChessPiece.TYPES);
+
+        if (code % ChessPiece.TYPES == ChessPiece.PAWN) {
+            this.pawnKey ^= Zobrist.piece(code, square);
+        }
+    }
+
+    // Recomputes the attacks of the pieces on the changed squares, and of the sliding pieces whose lines ran into a
+    // changed square, since those now see further or less far. Every other attack map is still correct. When "save"
+    // is set, the old maps are pushed so that "unmakeMove()" can restore them
+    private void updateAttacks(boolean save) {
+        long changed = this.changedSquares;
+        long sliders = this.occupied & ~changed & ~this.pieceBoards[ChessPiece.PAWN]
+            & ~this.pieceBoards[ChessPiece.KNIGHT] & ~this.pieceBoards[ChessPiece.KING]
+            & ~this.pieceBoards[ChessPiece.TYPES + ChessPiece.PAWN]
+            & ~this.pieceBoards[ChessPiece.TYPES + ChessPiece.KNIGHT]
+            & ~this.pieceBoards[ChessPiece.TYPES + ChessPiece.KING];
+        long affected = changed;
+
+        while (sliders != 0) {
+            int square = Bitboard.first(sliders);
+
+            if ((this.attackMaps[square] & changed) != 0) {
+                affected |= Bitboard.bit(square);
+            }
+
+            sliders &= sliders - 1;
+        }
+
+        while (affected != 0) {
+            int square = Bitboard.first(affected);
+
+            if (save) {
+                this.savedSquares[this.savedCount] = square;
+                this.savedMaps[this.savedCount++] = this.attackMaps[square];
+            }
+
+            this.attackMaps[square] = this.computeAttacks(square);
+            affected &= affected - 1;
+        }
+
+        this.changedSquares = Bitboard.EMPTY;
+        this.staleSides = 3;
+    }
+
+    private long computeAttacks(int square) {
+        int code = this.mailbox[square];
+
+        switch (code % ChessPiece.TYPES) {
+            case ChessPiece.PAWN:
+                return Pawn.attacks(square, code / ChessPiece.TYPES);
+
+            case ChessPiece.KNIGHT:
+                return Knight.attacks(square);
+
+            case ChessPiece.BISHOP:
+                return Bishop.attacks(square, this.occupied);
+
+            case ChessPiece.ROOK:
+                return Rook.attacks(square, this.occupied);
+
+            case ChessPiece.QUEEN:
+                return Queen.attacks(square, this.occupied);
+
+            case ChessPiece.KING:
+                return King.attacks(square);
+
+            default:
+                return Bitboard.EMPTY;
+        }
+    }
+
+    // Plays the move on the bitboards only, so the piece objects and IDs keep describing the position before
+    // the move until it is unmade. Nothing is allocated, and the move can be reverted with "unmakeMove()"
+    void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int moved = this.mailbox[from];
+        int side = moved / ChessPiece.TYPES;
+        int capturedSquare = flags == Move.EN_PASSANT ? to + (side == Chessboard.WHITE ? -Chessboard.WIDTH : Chessboard.WIDTH) : to;
+        int captured = this.mailbox[capturedSquare];
+
+        if (this.undoCount == this.undoStack.length) {
+            this.undoStack = Arrays.copyOf(this.undoStack, 2 * this.undoStack.length);
+            this.keyStack = Arrays.copyOf(this.keyStack, 2 * this.keyStack.length);
+            this.savedStarts = Arrays.copyOf(this.savedStarts, 2 * this.savedStarts.length);
+        }
+
+        this.undoStack[this.undoCount++] = (move & 0xFFFFL)
+            | ((long) (captured + 1) << 16)
+            | ((long) this.castlingRights << 20)
+            | ((long) this.enPassantSquare << 24)
+            | ((long) moved << 31);
+        this.keyStack[this.undoCount - 1] = this.key;
+
+        if (captured != Chessboard.EMPTY) {
+            this.clearPiece(capturedSquare);
+        }
+
+        this.clearPiece(from);
+
+        if (Move.isPromotion(move)) {
+            this.addPiece(to, side * ChessPiece.TYPES + Move.promotion(move));
+
+        } else {
+            this.addPiece(to, moved);
+        }
+
+        if (flags == Move.KING_CASTLE) {
+            this.clearPiece(from + 3);
+            this.addPiece(from + 1, side * ChessPiece.TYPES + ChessPiece.ROOK);
+
+        } else if (flags == Move.QUEEN_CASTLE) {
+            this.clearPiece(from - 4);
+            this.addPiece(from - 1, side * ChessPiece.TYPES + ChessPiece.ROOK);
+        }
+
+        this.setCastlingRights(this.castlingRights & Chessboard.CASTLING_MASK[from] & Chessboard.CASTLING_MASK[to]);
+        this.setEnPassantSquare(flags == Move.DOUBLE_PUSH ? (from + to) / 2 : Chessboard.NO_SQUARE);
+        this.setSideToMove(this.sideToMove ^ 1);
+        this.savedStarts[this.undoCount - 1] = this.savedCount;
+
+        // A move changes at most every square, so make room for that many saved maps
+        if (this.savedCount + Chessboard.SQUARES > this.savedMaps.length) {
+            this.savedSquares = Arrays.copyOf(this.savedSquares, 2 * this.savedSquares.length);
+            this.savedMaps = Arrays.copyOf(this.savedMaps, 2 * this.savedMaps.length);
+        }
+
+        this.updateAttacks(true);
+        this.verifyState();
+    }
+
+    // Reverts the last move played by "makeMove()"
+    void unmakeMove() {
+        long undo = this.undoStack[--this.undoCount];
+        int move = (int) (undo & 0xFFFF);
+        int captured = (int) ((undo >>> 16) & 0xF) - 1;
+        int moved = (int) ((undo >>> 31) & 0xF);
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int side = moved / ChessPiece.TYPES;
+
+        this.sideToMove ^= 1;
+        this.castlingRights = (int) ((undo >>> 20) & 0xF);
+        this.enPassantSquare = (int) ((undo >>> 24) & 0x7F);
+
+        if (flags == Move.KING_CASTLE) {
+            this.clearPiece(from + 1);
+            this.addPiece(from + 3, side * ChessPiece.TYPES + ChessPiece.ROOK);
+
+        } else if (flags == Move.QUEEN_CASTLE) {
+            this.clearPiece(from - 1);
+            this.addPiece(from - 4, side * ChessPiece.TYPES + ChessPiece.ROOK);
+        }
+
+        this.clearPiece(to);
+        this.addPiece(from, moved);
+
+        if (captured != Chessboard.EMPTY) {
+            if (flags == Move.EN_PASSANT) {
+                this.addPiece(to + (side == Chessboard.WHITE ? -Chessboard.WIDTH : Chessboard.WIDTH), captured);
+
+            } else {
+                this.addPiece(to, captured);
+            }
+        }
+
+        while (this.savedCount > this.savedStarts[this.undoCount]) {
+            this.savedCount--;
+            this.attackMaps[this.savedSquares[this.savedCount]] = this.savedMaps[this.savedCount];
+        }
+
+        this.changedSquares = Bitboard.EMPTY;
+        this.staleSides = 3;
+        this.key = this.keyStack[this.undoCount];
+        this.verifyState();
+    }
+
+    // Passes the turn to the other side without moving anything, which only the search does. The en passant
+    // square goes, as it would after any other move
+    void makeNullMove() {
+        if (this.undoCount == this.undoStack.length) {
+            this.undoStack = Arrays.copyOf(this.undoStack, 2 * this.undoStack.length);
+            this.keyStack = Arrays.copyOf(this.keyStack, 2 * this.keyStack.length);
+            this.savedStarts = Arrays.copyOf(this.savedStarts, 2 * this.savedStarts.length);
+        }
+
+        this.undoStack[this.undoCount++] = Move.NONE
+            | ((long) this.castlingRights << 20)
+            | ((long) this.enPassantSquare << 24);
+        this.keyStack[this.undoCount - 1] = this.key;
+        this.savedStarts[this.undoCount - 1] = this.savedCount;
+        this.setEnPassantSquare(Chessboard.NO_SQUARE);
+        this.setSideToMove(this.sideToMove ^ 1);
+        this.verifyState();
+    }
+
+    // Reverts the null move played by "makeNullMove()"
+    void unmakeNullMove() {
+        long undo = this.undoStack[--this.undoCount];
+
+        this.sideToMove ^= 1;
+        this.enPassantSquare = (int) ((undo >>> 24) & 0x7F);
+        this.key = this.keyStack[this.undoCount];
+        this.verifyState();
+    }
+
+    // Returns the last move made with "makeMove()", or Move.NONE if it was a null move or there's none
+    int lastMove() {
+        return this.undoCount == 0 ? Move.NONE : (int) (this.undoStack[this.undoCount - 1] & 0xFFFF);
+    }
+
+    // Returns "true" if the position was reached before by the moves made with "makeMove()". Only the moves since
+    // the last capture, pawn move or null move need checking, since no position before them can come back
+    boolean isRepetition() {
+        for (int i = this.undoCount - 1; i >= 0; i--) {
+            long undo = this.undoStack[i];
+            int captured = (int) ((undo >>> 16) & 0xF) - 1;
+            int moved = (int) ((undo >>> 31) & 0xF);
+
+            if (captured != Chessboard.EMPTY || moved % ChessPiece.TYPES == ChessPiece.PAWN
+                || (undo & 0xFFFF) == Move.NONE) {
+                return false;
+            }
+
+            // Only the positions with the same side to move can match
+            if (((this.undoCount - i) & 1) == 0 && this.keyStack[i] == this.key) {
+                return true;
+            }
+        }
+
+        return false;
+    }
 
-    // A map of all IDs to their corresponding pieces on the chessboard
-    private ConcurrentHashMap<String, ChessPiece> pieces;
+    // Returns the move of the piece on "from" to "to", with its flags worked out from the board. Pawns reaching
+    // the last row are promoted to a Queen
+    int encodeMove(int from, int to) {
+        int moved = this.mailbox[from];
+        int type = moved % ChessPiece.TYPES;
+        boolean capture = this.mailbox[to] != Chessboard.EMPTY;
+        int flags = capture ? Move.CAPTURE : Move.QUIET;
 
-    // The set of spaces on the chessboard
-    private HashSet<Position> spaces;
+        if (type == ChessPiece.PAWN) {
+            if (Bitboard.row(to) == 1 || Bitboard.row(to) == Chessboard.HEIGHT) {
+                flags = Move.promotionFlags(ChessPiece.QUEEN, capture);
 
-    // A map of all pieces that can escape a check to their corresponding moves that escape the check
-    private ConcurrentHashMap<String, HashSet<Position>> checkEscapes;
+            } else if (Math.abs(to - from) == 2 * Chessboard.WIDTH) {
+                flags = Move.DOUBLE_PUSH;
 
-    // The current Pawn vulnerable to "en passant" capture
-    private Pawn enPassantPawn;
+            } else if (!capture && Bitboard.col(to) != Bitboard.col(from)) {
+                flags = Move.EN_PASSANT;
+            }
 
-    Chessboard() {
-        super();
-        this.positions = new ConcurrentHashMap<Position, String>();
-        this.pieces = new ConcurrentHashMap<String, ChessPiece>();
-        this.spaces = new HashSet<Position>();
-        this.checkEscapes = new ConcurrentHashMap<String, HashSet<Position>>();
-        this.enPassantPawn = null;
+        } else if (type == ChessPiece.KING && to - from == 2) {
+            flags = Move.KING_CASTLE;
+
+        } else if (type == ChessPiece.KING && from - to == 2) {
+            flags = Move.QUEEN_CASTLE;
+        }
+
+        return Move.encode(from, to, flags);
     }
 
-    void initialize() {
-        this.initializePieces();
-        this.initializeSpaces();
+    // Writes the moves of the side to move into the list, replacing its contents. The moves are pseudo-legal, so
+    // they may still leave the King attacked
+    void generateMoves(MoveList moves, int kind) {
+        long remaining = this.sideBoards[this.sideToMove];
+
+        moves.clear();
+
+        while (remaining != 0) {
+            this.generateMoves(Bitboard.first(remaining), moves, kind);
+            remaining &= remaining - 1;
+        }
     }
 
-    void clearBoard() {
-        // this.positions does not need to be cleared since all pieces can just be overwritten
-        this.pieces.clear();
-        this.spaces.clear();
-        this.checkEscapes.clear();
+    void generateMoves(MoveList moves) {
+        this.generateMoves(moves, MoveList.ALL);
     }
 
-    // Only call this when the piece exists
-    ChessPiece getPiece(String ID) {
-        return this.pieces.get(ID);
+    void generateCaptures(MoveList moves) {
+        this.generateMoves(moves, MoveList.CAPTURES);
     }
 
-    ChessPiece getPiece(Position pos) {
-        return this.pieces.get(this.positions.get(pos));
+    void generateQuiets(MoveList moves) {
+        this.generateMoves(moves, MoveList.QUIETS);
     }
 
-    // If the added piece has the same position as another, then it will overwrite it
-    void spawnPiece(String ID, ChessPiece piece) {
-        this.pieces.remove(this.positions.get(piece.getPos()));
-        this.pieces.put(ID, piece);
-        // A copy of the position need not be created here because manipulating the position will be handled in "movePiece()". Refer to the notes to understand what I'm talking about
-        this.positions.put(piece.getPos(), ID);
-        this.spaces.remove(piece.getPos());
+    // Adds the moves of the piece on the square to the list
+    void generateMoves(int from, MoveList moves, int kind) {
+        switch (this.mailbox[from] % ChessPiece.TYPES) {
+            case ChessPiece.PAWN:
+                Pawn.generateMoves(this, from, moves, kind);
+                break;
+
+            case ChessPiece.KNIGHT:
+                Knight.generateMoves(this, from, moves, kind);
+                break;
+
+            case ChessPiece.BISHOP:
+                Bishop.generateMoves(this, from, moves, kind);
+                break;
+
+            case ChessPiece.ROOK:
+                Rook.generateMoves(this, from, moves, kind);
+                break;
+
+            case ChessPiece.QUEEN:
+                Queen.generateMoves(this, from, moves, kind);
+                break;
+
+            case ChessPiece.KING:
+                King.generateMoves(this, from, moves, kind);
+                break;
+
+            default:
+                break;
+        }
     }
 
-    // If there's no piece to remove, then nothing happens
-    void removePiece(String ID) {
-        this.removePiece(this.getPiece(ID).getPos());
+    // Writes only the legal moves of the side to move into the list, replacing its contents
+    void generateLegalMoves(MoveList moves) {
+        this.generateLegalMoves(moves, MoveList.ALL);
     }
 
-    void removePiece(Position pos) {
-        // A copy of the position need not be created here because it won't be manipulated. Refer to the notes to understand what I'm talking about
-        this.spaces.add(pos);
-        this.pieces.remove(this.positions.get(pos));
-        this.positions.put(pos, Chessboard.VACANT);
+    // The same for only one kind of move, so that a search can try the captures before generating the rest
+    void generateLegalMoves(MoveList moves, int kind) {
+        this.generateMoves(moves, kind);
+        this.keepLegal(moves);
     }
 
-    // Only call this when the destination is vacant
-    void movePiece(String ID, Position dest) {
-        this.movePiece(this.getPiece(ID).getPos(), dest);
+    // Returns "true" if the move is legal for the side to move. A move from the transposition table or from
+    // another position of the search may not be
+    boolean isLegal(int move) {
+        MoveList moves = this.scratchMoves();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int piece = this.mailbox[from];
+        int target = this.mailbox[to];
+
+        if (move == Move.NONE || piece == Chessboard.EMPTY || piece / ChessPiece.TYPES != this.sideToMove) {
+            return false;
+        }
+
+        // Besides Pawn moves and castling, a move is one of the piece's attacks onto an empty square or an enemy
+        if (piece % ChessPiece.TYPES != ChessPiece.PAWN && !Move.isCastle(move)) {
+            if (!Bitboard.contains(this.attackMaps[from], to)
+                || Move.flags(move) != (target == Chessboard.EMPTY ? Move.QUIET : Move.CAPTURE)
+                || target != Chessboard.EMPTY && target / ChessPiece.TYPES == this.sideToMove) {
+                return false;
+            }
+
+        } else {
+            moves.clear();
+            this.generateMoves(from, moves, MoveList.ALL);
+
+            if (!moves.contains(move)) {
+                return false;
+            }
+        }
+
+        moves.clear();
+        moves.add(move);
+        this.keepLegal(moves);
+
+        return moves.size() == 1;
     }
 
-    void movePiece(Position start, Position dest) {
-        // Refer to the notes as to why I made copies here
-        Position startCopy = new Position(start.getRow(), start.getCol());
-        Position destCopy = new Position(dest.getRow(), dest.getCol());
-        String ID = this.getID(start); // This can't directly be inserted in line 87 for some reason
-        ChessPiece piece = this.getPiece(start);
+    // Drops the moves of the list that would leave the King of the side to move attacked. Checks and pinned pieces
+    // are worked out up front, so no move is tried on the board except en passant captures, which can uncover an
+    // attack along the row of both pawns
+    private void keepLegal(MoveList moves) {
+        int side = this.sideToMove;
+        int king = this.kingSquare(side);
+        long checkers;
+        long pinned;
+        long danger;
+        long targets;
+        boolean doubleCheck;
+        int kept = 0;
+
+        if (king == Chessboard.NO_SQUARE) {
+            return;
+        }
+
+        if (this.legalKey != this.key || this.legalKey == 0) {
+            this.legalKey = this.key;
+            this.legalCheckers = this.checkers(side);
+            this.legalPinned = this.pinned(side);
+            this.legalDanger = this.kingDanger(side, this.legalCheckers);
+        }
+
+        checkers = this.legalCheckers;
+        pinned = this.legalPinned;
+        danger = this.legalDanger;
+        doubleCheck = Bitboard.count(checkers) > 1;
+
+        // When in check, other pieces must capture the checker or step between it and the King
+        if (checkers == Bitboard.EMPTY) {
+            targets = Bitboard.FULL;
+
+        } else {
+            targets = checkers | Bitboard.between(king, Bitboard.first(checkers));
+        }
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = Move.from(move);
+            int to = Move.to(move);
+            boolean legal;
+
+            if (from == king) {
+                if (Move.isCastle(move)) {
+                    legal = checkers == Bitboard.EMPTY
+                        && !Bitboard.contains(danger, (from + to) / 2)
+                        && !Bitboard.contains(danger, to);
+
+                } else {
+                    legal = !Bitboard.contains(danger, to);
+                }
+
+            } else if (doubleCheck) {
+                legal = false;
+
+            } else if (Move.flags(move) == Move.EN_PASSANT) {
+                legal = !this.resultsInCheck(move);
+
+            } else {
+                legal = Bitboard.contains(targets, to)
+                    && (!Bitboard.contains(pinned, from) || Bitboard.contains(Bitboard.line(king, from), to));
+            }
+
+            if (legal) {
+                moves.set(kept++, move);
+            }
+        }
+
+        moves.truncate(kept);
+    }
+
+    // Returns "true" if the side to move is checkmated, using the legal move generator
+    boolean isCheckmate() {
+        return this.inCheck(this.sideToMove) && !this.hasLegalMove();
+    }
+
+    // Returns "true" if the side to move is stalemated, using the legal move generator
+    boolean isStalemate() {
+        return !this.inCheck(this.sideToMove) && !this.hasLegalMove();
+    }
+
+    private boolean hasLegalMove() {
+        MoveList moves = this.scratchMoves();
+
+        this.generateLegalMoves(moves);
+
+        return moves.size() > 0;
+    }
+
+    // Returns the side's pieces that stand alone between their King and an enemy slider, and so may only move
+    // along that line
+    long pinned(int side) {
+        int king = this.kingSquare(side);
+        int enemy = 1 - side;
+        long enemies = this.sideBoards[enemy];
+        long straight = this.getPieces(enemy, ChessPiece.ROOK) | this.getPieces(enemy, ChessPiece.QUEEN);
+        long diagonal = this.getPieces(enemy, ChessPiece.BISHOP) | this.getPieces(enemy, ChessPiece.QUEEN);
+        long snipers = (Rook.attacks(king, enemies) & straight) | (Bishop.attacks(king, enemies) & diagonal);
+        long pinned = Bitboard.EMPTY;
+
+        while (snipers != 0) {
+            long blockers = Bitboard.between(king, Bitboard.first(snipers)) & this.occupied;
+
+            if (Bitboard.count(blockers) == 1 && (blockers & this.sideBoards[side]) != 0) {
+                pinned |= blockers;
+            }
+
+            snipers &= snipers - 1;
+        }
+
+        return pinned;
+    }
+
+    // Returns the squares the side's King can't step to. A slider that gives check also covers the squares behind
+    // the King, which its attack map stops short of
+    private long kingDanger(int side, long checkers) {
+        long danger = this.getAttacked(1 - side);
+        long sliders = checkers & ~this.pieceBoards[(1 - side) * ChessPiece.TYPES + ChessPiece.PAWN]
+            & ~this.pieceBoards[(1 - side) * ChessPiece.TYPES + ChessPiece.KNIGHT];
+        long withoutKing = this.occupied & ~this.getPieces(side, ChessPiece.KING);
+
+        while (sliders != 0) {
+            int square = Bitboard.first(sliders);
+            int type = this.mailbox[square] % ChessPiece.TYPES;
+
+            if (type == ChessPiece.ROOK || type == ChessPiece.QUEEN) {
+                danger |= Rook.attacks(square, withoutKing);
+            }
+
+            if (type == ChessPiece.BISHOP || type == ChessPiece.QUEEN) {
+                danger |= Bishop.attacks(square, withoutKing);
+            }
+
+            sliders &= sliders - 1;
+        }
+
+        return danger;
+    }
+
+    // The move list shared by the methods that only need one for a moment, created the first time it's needed
+    private MoveList scratchMoves() {
+        if (this.scratchMoves == null) {
+            this.scratchMoves = new MoveList();
+        }
+
+        return this.scratchMoves;
+    }
+
+    // Returns the destinations of the moves of the piece on the square
+    HashSet<Position> possibleMoves(int from) {
+        HashSet<Position> destinations = new HashSet<Position>();
+        MoveList moves = this.scratchMoves();
+
+        moves.clear();
+        this.generateMoves(from, moves, MoveList.ALL);
+
+        for (int i = 0; i < moves.size(); i++) {
+            destinations.add(Position.of(Move.to(moves.get(i))));
+        }
+
+        return destinations;
+    }
+
+    int kingSquare(int side) {
+        return Bitboard.first(this.getPieces(side, ChessPiece.KING));
+    }
+
+    // Returns "true" if the side's King is attacked
+    boolean inCheck(int side) {
+        int king = this.kingSquare(side);
+
+        return king != Chessboard.NO_SQUARE && this.isAttacked(king, 1 - side);
+    }
+
+    // Returns "true" if any piece of the attacking side targets the square
+    boolean isAttacked(int square, int bySide) {
+        return Bitboard.contains(this.getAttacked(bySide), square);
+    }
+
+    // Returns the pieces of both sides that attack the square when only the pieces of "occupied" are on the board.
+    // Taking pieces out of "occupied" uncovers the sliders behind them
+    long attackersTo(int square, long occupied) {
+        long queens = this.both(ChessPiece.QUEEN);
+
+        return ((Pawn.attacks(square, Chessboard.BLACK) & this.getPieces(Chessboard.WHITE, ChessPiece.PAWN))
+            | (Pawn.attacks(square, Chessboard.WHITE) & this.getPieces(Chessboard.BLACK, ChessPiece.PAWN))
+            | (Knight.attacks(square) & this.both(ChessPiece.KNIGHT))
+            | (King.attacks(square) & this.both(ChessPiece.KING))
+            | (Bishop.attacks(square, occupied) & (this.both(ChessPiece.BISHOP) | queens))
+            | (Rook.attacks(square, occupied) & (this.both(ChessPiece.ROOK) | queens))) & occupied;
+    }
+
+    // Returns "true" if the move puts the other side in check. The move is played and taken back to find out, so
+    // it costs as much as searching one more node
+    boolean givesCheck(int move) {
+        boolean check;
+
+        this.makeMove(move);
+        check = this.inCheck(this.sideToMove);
+        this.unmakeMove();
+
+        return check;
+    }
+
+    // Returns the pieces of the type of both sides
+    private long both(int type) {
+        return this.pieceBoards[type] | this.pieceBoards[ChessPiece.TYPES + type];
+    }
+
+    // Returns the static exchange evaluation of a move: the material, in "Evaluation.EXCHANGE_VALUES", its side
+    // ends up winning on the destination square if both sides keep taking there with their least valuable attacker
+    // for as long as it pays them. Sliders behind the pieces that take join in as the line opens. Nothing is played
+    // on the board, and pins and checks are ignored, so it's an estimate that's right for almost every capture
+    int see(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int side = this.mailbox[from] / ChessPiece.TYPES;
+        int attacker = this.mailbox[from] % ChessPiece.TYPES;
+        int victim = this.mailbox[to];
+        int[] gains = this.exchangeGains;
+        long occupied = this.occupied ^ Bitboard.bit(from);
+        long attackers;
+        long sliders = this.occupied & ~this.both(ChessPiece.KNIGHT) & ~this.both(ChessPiece.KING);
+        int depth = 0;
+
+        gains[0] = victim == Chessboard.EMPTY ? 0 : Evaluation.EXCHANGE_VALUES[victim % ChessPiece.TYPES];
+
+        if (Move.flags(move) == Move.EN_PASSANT) {
+            gains[0] = Evaluation.EXCHANGE_VALUES[ChessPiece.PAWN];
+            occupied ^= Bitboard.bit(to + (side == Chessboard.WHITE ? -Chessboard.WIDTH : Chessboard.WIDTH));
+        }
+
+        if (Move.isPromotion(move)) {
+            attacker = Move.promotion(move);
+            gains[0] += Evaluation.EXCHANGE_VALUES[attacker] - Evaluation.EXCHANGE_VALUES[ChessPiece.PAWN];
+        }
+
+        attackers = this.attackersTo(to, occupied);
+
+        while (true) {
+            long candidates;
+
+            side = 1 - side;
+            candidates = attackers & this.sideBoards[side];
+
+            if (candidates == 0) {
+                break;
+            }
+
+            // What the side would have if it took the piece that just took, and then lost the one it takes with
+            depth++;
+            gains[depth] = Evaluation.EXCHANGE_VALUES[attacker] - gains[depth - 1];
+
+            for (attacker = ChessPiece.PAWN; attacker < ChessPiece.KING; attacker++) {
+                if ((candidates & this.pieceBoards[side * ChessPiece.TYPES + attacker]) != 0) {
+                    break;
+                }
+            }
+
+            from = Bitboard.first(candidates & this.pieceBoards[side * ChessPiece.TYPES + attacker]);
+            occupied ^= Bitboard.bit(from);
+
+            // Taking with a Pawn, a Bishop, a Rook or a Queen can open a line to the square behind it
+            if (Bitboard.contains(sliders, from)) {
+                attackers |= this.attackersTo(to, occupied);
+            }
+
+            attackers &= occupied;
+        }
+
+        // Each side only goes on taking if that's better than stopping
+        for (; depth > 0; depth--) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+        }
+
+        return gains[0];
+    }
+
+    // Returns the side's pieces, other than its King, that the other side can win material by taking
+    long hanging(int side) {
+        long hanging = Bitboard.EMPTY;
+        long remaining = this.sideBoards[side] & ~this.getPieces(side, ChessPiece.KING);
+
+        while (remaining != 0) {
+            int square = Bitboard.first(remaining);
+            long attackers = this.attackersTo(square, this.occupied) & this.sideBoards[1 - side];
+
+            remaining &= remaining - 1;
+
+            // Taking with the least valuable attacker is the likeliest to pay
+            for (int type = ChessPiece.PAWN; type <= ChessPiece.KING && attackers != 0; type++) {
+                long pieces = attackers & this.pieceBoards[(1 - side) * ChessPiece.TYPES + type];
+
+                if (pieces != 0) {
+                    if (this.see(Move.encode(Bitboard.first(pieces), square, Move.CAPTURE)) > 0) {
+                        hanging |= Bitboard.bit(square);
+                    }
+
+                    break;
+                }
+            }
+        }
 
-        this.spaces.add(startCopy);
-        piece.getPos().setPosition(dest.getRow(), dest.getCol());
-        this.positions.put(destCopy, ID);
-        this.positions.put(startCopy, Chessboard.VACANT);
-        this.spaces.remove(destCopy);
+        return hanging;
     }
 
+    // Returns the ID of the piece on the position, "__" if it's vacant, or null if it's off the board
     String getID(Position pos) {
-        return this.positions.get(pos);
+        String ID;
+
+        if (!this.onBoard(pos)) {
+            return null;
+        }
+
+        this.ensurePieces();
+        ID = this.ids[Bitboard.square(pos)];
+
+        return ID != null ? ID : Chessboard.VACANT;
     }
 
     boolean containsPiece(String ID) {
+        this.ensurePieces();
         return this.pieces.containsKey(ID);
     }
 
     boolean isPiece(Position pos) {
-        return this.positions.containsKey(pos) && !this.spaces.contains(pos);
+        return this.onBoard(pos) && Bitboard.contains(this.occupied, Bitboard.square(pos));
     }
 
     boolean canMovePiece(String ID, Position dest) {
+        this.ensurePieces();
         return this.pieces.get(ID).move(this, dest);
     }
 
     boolean friendlyFire(ChessPlayer friendlyTeam, Position pos) {
-        return this.isPiece(pos) && this.getPiece(pos).getOwner() == friendlyTeam;
+        return this.onBoard(pos)
+            && Bitboard.contains(this.sideBoards[Chessboard.side(friendlyTeam)], Bitboard.square(pos));
     }
 
     boolean isEnemy(ChessPlayer friendlyTeam, Position pos) {
-        return this.isPiece(pos) && this.getPiece(pos).getOwner() != friendlyTeam;
+        return this.onBoard(pos)
+            && Bitboard.contains(this.sideBoards[1 - Chessboard.side(friendlyTeam)], Bitboard.square(pos));
     }
 
     boolean vacantSpot(Position pos) {
-        return this.spaces.contains(pos);
+        return this.onBoard(pos) && !Bitboard.contains(this.occupied, Bitboard.square(pos));
     }
 
     boolean onBoard(Position pos) {
-        return this.positions.containsKey(pos);
+        return pos.getSquare() != Chessboard.NO_SQUARE;
     }
 
     void setEnPassantPawn(Pawn pawn) {
@@ -128,6 +1517,8 @@ class Chessboard {
     }
 
     void enPassantSwitch(ChessPlayer player) {
+        this.ensurePieces();
+
         if (this.enPassantPawn != null && this.enPassantPawn.getOwner() == player) {
             this.enPassantPawn.enPassantSwitch();
             this.enPassantPawn = null;
@@ -141,7 +1532,7 @@ class Chessboard {
         if (piece.getClass() == Pawn.class) {
             Pawn pawn = (Pawn) piece;
 
-            if (player == Chess.PLAYER1) {
+            if (player.getSide() == Chessboard.WHITE) {
                 return pawn.getPos().getRow() == 8;
     
             } else {
@@ -153,6 +1544,17 @@ class Chessboard {
         }
     }
 
+    // Names a promoted piece after the number of pieces of its type the player has, skipping the IDs in use
+    private String promotedID(String letter, int count) {
+        int number = count + 1;
+
+        while (this.pieces.containsKey(letter + number)) {
+            number++;
+        }
+
+        return letter + number;
+    }
+
     // Once a pawn reaches the top it must be promoted to a Queen, Rook, Bishop or Knight
     void promote(String ID, String choice ) {
         Pawn pawn = (Pawn) this.getPiece(ID);
@@ -163,7 +1565,7 @@ class Chessboard {
         String K;
         String B;
 
-        if (currentPlayer == Chess.PLAYER1) {
+        if (currentPlayer.getSide() == Chessboard.WHITE) {
             Q = "Q";
             R = "R";
             K = "K";
@@ -177,46 +1579,29 @@ class Chessboard {
         }
 
         if (choice.equals("Queen")) {
-            newPiece = new Queen(currentPlayer, new Position(pawn.getPos().getRow(), pawn.getPos().getCol()));
-            currentPlayer.incrementQueens();
-            this.spawnPiece(Q + currentPlayer.getNumQueens(), newPiece);
+            newPiece = new Queen(currentPlayer, pawn.getPos());
+            this.spawnPiece(this.promotedID(Q, currentPlayer.getNumQueens()), newPiece);
 
         } else if (choice.equals("Rook")) {
-            newPiece = new Rook(currentPlayer, new Position(pawn.getPos().getRow(), pawn.getPos().getCol()));
-            currentPlayer.incrementRooks();
-            this.spawnPiece(R +currentPlayer.getNumRooks(), newPiece);
+            newPiece = new Rook(currentPlayer, pawn.getPos());
+            this.spawnPiece(this.promotedID(R, currentPlayer.getNumRooks()), newPiece);
 
         } else if (choice.equals("Knight")) {
-            newPiece = new Knight(currentPlayer, new Position(pawn.getPos().getRow(), pawn.getPos().getCol()));
-            currentPlayer.incrementKnights();;
-            this.spawnPiece(K + currentPlayer.getNumKnights(), newPiece);
+            newPiece = new Knight(currentPlayer, pawn.getPos());
+            this.spawnPiece(this.promotedID(K, currentPlayer.getNumKnights()), newPiece);
 
         } else if (choice.equals("Bishop")) {
-            newPiece = new Bishop(currentPlayer, new Position(pawn.getPos().getRow(), pawn.getPos().getCol()));
-            currentPlayer.incrementBishops();;
-            this.spawnPiece(B + currentPlayer.getNumBishops(), newPiece);
+            newPiece = new Bishop(currentPlayer, pawn.getPos());
+            this.spawnPiece(this.promotedID(B, currentPlayer.getNumBishops()), newPiece);
         }
 
         if (newPiece.targetsKing(this)) {
-            if (currentPlayer == Chess.PLAYER1) {
-                Chess.PLAYER2.checked();
-
-            } else {
-                Chess.PLAYER1.checked();
-            }
+            this.getOpponent(currentPlayer).checked();
         }
     }
 
     boolean kingTargeted(ChessPlayer opponent) {
-        for (ChessPiece piece : this.pieces.values()) {
-            if (piece.getOwner() == opponent) {
-                if (piece.targetsKing(this)) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
+        return this.inCheck(1 - Chessboard.side(opponent));
     }
 
     boolean escapesCheck(ChessPiece piece, Position dest) {
@@ -229,177 +1614,48 @@ class Chessboard {
         this.checkEscapes.clear();
     }
 
+    // Tries the move with "makeMove()" and reverts it, so the board and pieces are left untouched
     boolean resultsInCheck(ChessPiece piece, Position dest) {
-        boolean check = true;
-        String deadID = null;
-        ChessPiece deadPiece = null;
-        Position pastPos = new Position(piece.getPos().getRow(), piece.getPos().getCol());
-        ChessPlayer opponent;
-
-        if (piece.getOwner() == Chess.PLAYER1) {
-            opponent = Chess.PLAYER2;
-
-        } else {
-            opponent = Chess.PLAYER1;
-        }
-
-        // Attempt move on a vacant destination
-        if (this.vacantSpot(dest)) {
-            this.movePiece(piece.getPos(), dest);
-
-            // If castling
-            if (piece.getClass() == King.class) {
-                if (this.getID(piece.getPos()).equals("Ki")) {
-                    if (dest.equals(new Position(1, 7)) && ((King) piece).canCastle()) {
-                        this.movePiece(new Position(1, 8), new Position(1, 6));
-    
-                    } else if (dest.equals(new Position(1, 3)) && ((King) piece).canCastle()) {
-                        this.movePiece(new Position(1, 1), new Position(1, 4));
-                    }
-    
-                } else {
-                    if (dest.equals(new Position(8, 7)) && ((King) piece).canCastle()) {
-                        this.movePiece(new Position(8, 8), new Position(8, 6));
-    
-                    } else if (dest.equals(new Position(8, 3)) && ((King) piece).canCastle()) {
-                        this.movePiece(new Position(8, 1), new Position(8, 4));
-                    }
-                }
-                
-            // If an "en passant" capture
-            } else if (piece.getClass() == Pawn.class) {
-                if (piece.getOwner() == Chess.PLAYER1) {
-                    if (dest.equals(new Position(piece.getPos().getRow() + 1, piece.getPos().getCol() - 1))) {
-                        Position left = new Position(piece.getPos().getRow(), piece.getPos().getCol() - 1);
-                        deadID = this.getID(left);
-                        deadPiece = this.getPiece(left);
-    
-                        if (this.onBoard(left) && deadPiece.getClass() == Pawn.class && ((Pawn) deadPiece).canBeEnPassant()) {
-                            this.removePiece(left);
-                        }
-    
-                    } else if (dest.equals(new Position(piece.getPos().getRow() + 1, piece.getPos().getCol() + 1))) {
-                        Position right = new Position(piece.getPos().getRow(), piece.getPos().getCol() + 1);
-                        deadID = this.getID(right);
-                        deadPiece = this.getPiece(right);
-    
-                        if (this.onBoard(right) && deadPiece.getClass() == Pawn.class && ((Pawn) deadPiece).canBeEnPassant()) {
-                            this.removePiece(right);
-                        }
-                    }
-    
-                } else {
-                    if (dest.equals(new Position(piece.getPos().getRow() - 1, piece.getPos().getCol() + 1))) {
-                        Position left = new Position(piece.getPos().getRow(), piece.getPos().getCol() + 1);
-                        deadID = this.getID(left);
-                        deadPiece = this.getPiece(left);
-    
-                        if (this.onBoard(left) && deadPiece.getClass() == Pawn.class && ((Pawn) deadPiece).canBeEnPassant()) {
-                            this.removePiece(left);
-                        }
-    
-                    } else if (dest.equals(new Position(piece.getPos().getRow() - 1, piece.getPos().getCol() - 1))) {
-                        Position right = new Position(piece.getPos().getRow(), piece.getPos().getCol() - 1);
-                        deadID = this.getID(right);
-                        deadPiece = this.getPiece(right);
-    
-                        if (this.onBoard(right) && deadPiece.getClass() == Pawn.class && ((Pawn) deadPiece).canBeEnPassant()) {
-                            this.removePiece(right);
-                        }
-                    }
-                }
-            }
-
-            // If the resulting move clears the check, then there's no checkmate
-            if (!this.kingTargeted(opponent)) {
-                check = false;
-            }
-
-            // Revert move
-            this.movePiece(dest, pastPos);
-
-            if (piece.getClass() == King.class) {
-                if (this.getID(piece.getPos()).equals("Ki")) {
-                    if (dest.equals(new Position(1, 7)) && ((King) piece).canCastle()) {
-                        this.movePiece(new Position(1, 6), new Position(1, 8));
-    
-                    } else if (dest.equals(new Position(1, 3)) && ((King) piece).canCastle()) {
-                        this.movePiece(new Position(1, 4), new Position(1, 1));
-                    }
-    
-                } else {
-                    if (dest.equals(new Position(8, 7)) && ((King) piece).canCastle()) {
-                        this.movePiece(new Position(8, 6), new Position(8, 8));
-    
-                    } else if (dest.equals(new Position(8, 3)) && ((King) piece).canCastle()) {
-                        this.movePiece(new Position(8, 4), new Position(8, 1));
-                    }
-                }
-
-            } else if (piece.getClass() == Pawn.class) {
-                if (deadPiece != null) {
-                    if (piece.getOwner() == Chess.PLAYER1) {
-                        if (dest.equals(new Position(piece.getPos().getRow() + 1, piece.getPos().getCol() - 1))) {             
-                            if (deadPiece.getClass() == Pawn.class && ((Pawn) deadPiece).canBeEnPassant()) {
-                                this.spawnPiece(deadID, deadPiece);
-                            }
-        
-                        } else if (dest.equals(new Position(piece.getPos().getRow() + 1, piece.getPos().getCol() + 1))) {
-                            if (deadPiece.getClass() == Pawn.class && ((Pawn) deadPiece).canBeEnPassant()) {
-                                this.spawnPiece(deadID, deadPiece);
-                            }
-                        }
-    
-                    } else {
-                        if (dest.equals(new Position(piece.getPos().getRow() - 1, piece.getPos().getCol() + 1))) {            
-                            if (deadPiece.getClass() == Pawn.class && ((Pawn) deadPiece).canBeEnPassant()) {
-                                this.spawnPiece(deadID, deadPiece);
-                            }
-        
-                        } else if (dest.equals(new Position(piece.getPos().getRow() - 1, piece.getPos().getCol() - 1))) {       
-                            if (deadPiece.getClass() == Pawn.class && ((Pawn) deadPiece).canBeEnPassant()) {
-                                this.spawnPiece(deadID, deadPiece);
-                            }
-                        }
-                    }
-                }
-            }
-
-        // Attempt move on an enemy piece
-        } else {
-            deadID = this.getID(dest);
-            deadPiece = this.getPiece(dest);
-
-            this.removePiece(dest);
-            this.movePiece(piece.getPos(), dest);
+        return this.resultsInCheck(this.encodeMove(Bitboard.square(piece.getPos()), Bitboard.square(dest)));
+    }
 
-            if (!this.kingTargeted(opponent)) {
-                check = false;
-            }
+    boolean resultsInCheck(int move) {
+        int side = this.mailbox[Move.from(move)] / ChessPiece.TYPES;
+        boolean check;
 
-            this.movePiece(dest, pastPos);
-            this.spawnPiece(deadID, deadPiece);
-        }
+        this.makeMove(move);
+        check = this.inCheck(side);
+        this.unmakeMove();
 
         return check;
     }
 
     boolean checkmate(ChessPlayer opponent) {
         boolean checkmate = true;
+        long remaining = this.sideBoards[1 - Chessboard.side(opponent)];
+        MoveList moves = this.scratchMoves();
+
+        this.ensurePieces();
+        moves.clear();
+
+        while (remaining != 0) {
+            this.generateMoves(Bitboard.first(remaining), moves, MoveList.ALL);
+            remaining &= remaining - 1;
+        }
 
         // Check all possible moves from all enemy pieces to see if the enemy can escape the check
-        for (ChessPiece piece : this.pieces.values()) {
-            if (piece.getOwner() != opponent) {
-                for (Position dest : piece.possibleMoves(this)) {
-                    if (!this.resultsInCheck(piece, dest)) {
-                        if (!this.checkEscapes.containsKey(this.getID(piece.getPos()))) {
-                            this.checkEscapes.put(this.getID(piece.getPos()), new HashSet<Position>());
-                        }
-
-                        this.checkEscapes.get(this.getID(piece.getPos())).add(dest);
-                        checkmate = false;
-                    }
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+
+            if (!this.resultsInCheck(move)) {
+                String ID = this.ids[Move.from(move)];
+
+                if (!this.checkEscapes.containsKey(ID)) {
+                    this.checkEscapes.put(ID, new HashSet<Position>());
                 }
+
+                this.checkEscapes.get(ID).add(Position.of(Move.to(move)));
+                checkmate = false;
             }
         }
 
@@ -407,145 +1663,35 @@ class Chessboard {
     }
 
     void initializePieces() {
+        ChessPlayer white = this.players[Chessboard.WHITE];
+        ChessPlayer black = this.players[Chessboard.BLACK];
+
         // Player 1's pieces
-        Position pos = new Position(1, 5);
-        this.pieces.put("Ki", new King(Chess.PLAYER1, pos));
-        // A copy of the position need not be created here because manipulating the position will be handled in "movePiece()". Refer to the notes to understand what I'm talking about
-        this.positions.put(pos, "Ki");
-
-        pos = new Position(1, 4);
-        this.pieces.put("Qu", new Queen(Chess.PLAYER1, pos));
-        this.positions.put(pos, "Qu");
-
-        pos = new Position(1, 1);
-        this.pieces.put("R1", new Rook(Chess.PLAYER1, pos));
-        this.positions.put(pos, "R1");
-
-        pos = new Position(1, 8);
-        this.pieces.put("R2", new Rook(Chess.PLAYER1, pos));
-        this.positions.put(pos, "R2");
-
-        pos = new Position(1, 2);
-        this.pieces.put("K1", new Knight(Chess.PLAYER1, pos));
-        this.positions.put(pos, "K1");
-
-        pos = new Position(1, 7);
-        this.pieces.put("K2", new Knight(Chess.PLAYER1, pos));
-        this.positions.put(pos, "K2");
-
-        pos = new Position(1, 3);
-        this.pieces.put("B1", new Bishop(Chess.PLAYER1, pos));
-        this.positions.put(pos, "B1");
-
-        pos = new Position(1, 6);
-        this.pieces.put("B2", new Bishop(Chess.PLAYER1, pos));
-        this.positions.put(pos, "B2");
-
-        pos = new Position(2, 1);
-        this.pieces.put("P1", new Pawn(Chess.PLAYER1, pos));
-        this.positions.put(pos, "P1");
-
-        pos = new Position(2, 2);
-        this.pieces.put("P2", new Pawn(Chess.PLAYER1, pos));
-        this.positions.put(pos, "P2");
-        
-        pos = new Position(2, 3);
-        this.pieces.put("P3", new Pawn(Chess.PLAYER1, pos));
-        this.positions.put(pos, "P3");
-
-        pos = new Position(2, 4);
-        this.pieces.put("P4", new Pawn(Chess.PLAYER1, pos));
-        this.positions.put(pos, "P4");
-
-        pos = new Position(2, 5);
-        this.pieces.put("P5", new Pawn(Chess.PLAYER1, pos));
-        this.positions.put(pos, "P5");
-
-        pos = new Position(2, 6);
-        this.pieces.put("P6", new Pawn(Chess.PLAYER1, pos));
-        this.positions.put(pos, "P6");
-
-        pos = new Position(2, 7);
-        this.pieces.put("P7", new Pawn(Chess.PLAYER1, pos));
-        this.positions.put(pos, "P7");
-
-        pos = new Position(2, 8);
-        this.pieces.put("P8", new Pawn(Chess.PLAYER1, pos));
-        this.positions.put(pos, "P8");
+        this.spawnPiece("Ki", new King(white, Position.of(1, 5)));
+        this.spawnPiece("Qu", new Queen(white, Position.of(1, 4)));
+        this.spawnPiece("R1", new Rook(white, Position.of(1, 1)));
+        this.spawnPiece("R2", new Rook(white, Position.of(1, 8)));
+        this.spawnPiece("K1", new Knight(white, Position.of(1, 2)));
+        this.spawnPiece("K2", new Knight(white, Position.of(1, 7)));
+        this.spawnPiece("B1", new Bishop(white, Position.of(1, 3)));
+        this.spawnPiece("B2", new Bishop(white, Position.of(1, 6)));
+
+        for (int col = 1; col <= Chessboard.WIDTH; col++) {
+            this.spawnPiece("P" + col, new Pawn(white, Position.of(2, col)));
+        }
 
         // Player 2's pieces
-        pos = new Position(8, 5);
-        this.pieces.put("ki", new King(Chess.PLAYER2, pos));
-        this.positions.put(pos, "ki");
-
-        pos = new Position(8, 4);
-        this.pieces.put("qu", new Queen(Chess.PLAYER2, pos));
-        this.positions.put(pos, "qu");
-
-        pos = new Position(8, 1);
-        this.pieces.put("r1", new Rook(Chess.PLAYER2, pos));
-        this.positions.put(pos, "r1");
-
-        pos = new Position(8, 8);
-        this.pieces.put("r2", new Rook(Chess.PLAYER2, pos));
-        this.positions.put(pos, "r2");
-
-        pos = new Position(8, 2);
-        this.pieces.put("k1", new Knight(Chess.PLAYER2, pos));
-        this.positions.put(pos, "k1");
-
-        pos = new Position(8, 7);
-        this.pieces.put("k2", new Knight(Chess.PLAYER2, pos));
-        this.positions.put(pos, "k2");
-
-        pos = new Position(8, 3);
-        this.pieces.put("b1", new Bishop(Chess.PLAYER2, pos));
-        this.positions.put(pos, "b1");
-
-        pos = new Position(8, 6);
-        this.pieces.put("b2", new Bishop(Chess.PLAYER2, pos));
-        this.positions.put(pos, "b2");
-
-        pos = new Position(7, 1);
-        this.pieces.put("p1", new Pawn(Chess.PLAYER2, pos));
-        this.positions.put(pos, "p1");
-
-        pos = new Position(7, 2);
-        this.pieces.put("p2", new Pawn(Chess.PLAYER2, pos));
-        this.positions.put(pos, "p2");
-
-        pos = new Position(7, 3);
-        this.pieces.put("p3", new Pawn(Chess.PLAYER2, pos));
-        this.positions.put(pos, "p3");
-
-        pos = new Position(7, 4);
-        this.pieces.put("p4", new Pawn(Chess.PLAYER2, pos));
-        this.positions.put(pos, "p4");
-
-        pos = new Position(7, 5);
-        this.pieces.put("p5", new Pawn(Chess.PLAYER2, pos));
-        this.positions.put(pos, "p5");
-
-        pos = new Position(7, 6);
-        this.pieces.put("p6", new Pawn(Chess.PLAYER2, pos));
-        this.positions.put(pos, "p6");
-
-        pos = new Position(7, 7);
-        this.pieces.put("p7", new Pawn(Chess.PLAYER2, pos));
-        this.positions.put(pos, "p7");
-
-        pos = new Position(7, 8);
-        this.pieces.put("p8", new Pawn(Chess.PLAYER2, pos));
-        this.positions.put(pos, "p8");
-    }
-
-    void initializeSpaces() {
-        for (int row = 3; row <= 6; row++) {
-            for (int col = 1; col <= Chessboard.WIDTH; col++) {
-                Position space = new Position(row, col);
-                this.spaces.add(space);
-                this.positions.put(space, Chessboard.VACANT);
-            }
+        this.spawnPiece("ki", new King(black, Position.of(8, 5)));
+        this.spawnPiece("qu", new Queen(black, Position.of(8, 4)));
+        this.spawnPiece("r1", new Rook(black, Position.of(8, 1)));
+        this.spawnPiece("r2", new Rook(black, Position.of(8, 8)));
+        this.spawnPiece("k1", new Knight(black, Position.of(8, 2)));
+        this.spawnPiece("k2", new Knight(black, Position.of(8, 7)));
+        this.spawnPiece("b1", new Bishop(black, Position.of(8, 3)));
+        this.spawnPiece("b2", new Bishop(black, Position.of(8, 6)));
+
+        for (int col = 1; col <= Chessboard.WIDTH; col++) {
+            this.spawnPiece("p" + col, new Pawn(black, Position.of(7, col)));
         }
     }
 }
\ No newline at end of file
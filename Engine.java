@@ -0,0 +1,1024 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+// A computer player. It searches the moves of a position with negamax alpha-beta, as a principal variation search
+// that only gives the first move of each node the full window, one ply deeper each iteration and within an
+// aspiration window around the last iteration's score, until it runs out of time or reaches the depth it was given.
+// Everything a search needs is created up front, so searching allocates nothing and runs at the speed of the move
+// generator.
+//
+// With more than one thread the engine runs a "Lazy SMP" search: helper engines search the same position on boards
+// of their own while the main one does, and they only share the transposition table. The results they store make
+// the main search's cutoffs come sooner. Odd helpers search one ply deeper than the rest, so that the threads
+// spread out over the tree instead of all searching the same nodes
+class Engine implements Runnable {
+    // Scores are in centipawns from the side to move's point of view. A mate is worth MATE minus the plies to it
+    static final int INFINITY = 32000;
+    static final int MATE = 31000;
+    static final int DRAW = 0;
+    static final int MAX_DEPTH = 64;
+
+    // The selective search techniques, which "setPruning()" switches on and off
+    static final int NULL_MOVE = 1;
+    static final int LATE_MOVE_REDUCTIONS = 2;
+    static final int FUTILITY = 4;
+    static final int ALL_PRUNING = Engine.NULL_MOVE | Engine.LATE_MOVE_REDUCTIONS | Engine.FUTILITY;
+
+    // Any score this close to MATE is a mate, including the longest a tablebase can find past the last ply
+    private static final int MATE_BOUND = Engine.MATE - Engine.MAX_DEPTH - Tablebase.MAX_PLIES;
+
+    // The clock is read once this many nodes
+    private static final int CHECK_NODES = 2048;
+
+    // A capture in the quiescence search is skipped if winning the piece with this much to spare still wouldn't
+    // bring the score up to alpha
+    private static final int DELTA_MARGIN = 200;
+
+    // A null move is searched this many plies shallower than the other moves, and one more from NULL_MOVE_DEEP on
+    private static final int NULL_MOVE_REDUCTION = 2;
+    private static final int NULL_MOVE_DEEP = 7;
+
+    // From this depth on, the quiet moves after the killers are searched a ply shallower from the LATE_MOVE'th move
+    // on, and two plies shallower from the 2 * LATE_MOVE'th move on once the depth reaches DEEP_REDUCTION_DEPTH
+    private static final int REDUCTION_DEPTH = 3;
+    private static final int DEEP_REDUCTION_DEPTH = 6;
+    private static final int LATE_MOVE = 4;
+
+    // How far from the bound the static evaluation of a node this many plies from the leaves has to be for futility
+    // pruning. A quiet move is taken to change the score by less than that
+    private static final int[] FUTILITY_MARGINS = {0, 150, 300, 450};
+
+    // From this depth on, each iteration first searches a window this wide on either side of the last iteration's
+    // score, doubling the side it fails on until the score falls inside
+    private static final int ASPIRATION_DEPTH = 4;
+    private static final int ASPIRATION_WINDOW = 25;
+
+    // The size of each thread's pawn structure cache
+    private static final int PAWN_KILOBYTES = 256;
+
+    // The positions of the scaling report: an opening, two middlegames and an endgame
+    private static final String[] SCALING_FENS = {
+        Chessboard.START_FEN,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+    };
+    private static final int[] SCALING_THREADS = {1, 2, 4, 8, 16};
+
+    // The techniques the pruning report compares
+    private static final int[] PRUNING = {
+        0, Engine.NULL_MOVE, Engine.LATE_MOVE_REDUCTIONS, Engine.FUTILITY, Engine.ALL_PRUNING
+    };
+    private static final String[] PRUNING_NAMES = {"None", "Null move", "Late move reductions", "Futility", "All"};
+
+    private final Chessboard chessboard;
+    private final TranspositionTable table;
+    private final PawnTable pawns;
+
+    // One move list and one move picker per ply
+    private final MoveList[] moves;
+    private final MovePicker[] pickers;
+
+    // The quiet moves that last caused a cutoff at each ply, and how often quiet moves of each piece code to each
+    // square have caused cutoffs, which the move pickers try first
+    private final int[][] killers;
+    private final int[][] history;
+
+    // The best line found from each ply, filled in as the search backs up: "pv[ply]" holds the moves from "ply" to
+    // "pvLength[ply]"
+    private final int[][] pv;
+    private final int[] pvLength;
+
+    // The helpers of the main engine, and which helper this is (0 for the main engine)
+    private final Engine[] helpers;
+    private final int id;
+
+    // Where the search reports each finished iteration, or null to keep quiet
+    private PrintStream output;
+
+    // Book moves are played without searching, or null to always search
+    private OpeningBook book;
+
+    // Where tablebase probes lay out their positions
+    private final int[] position;
+
+    // The nodes of the main search, and of the quiescence search at its leaves
+    private long nodes;
+    private long quiescenceNodes;
+    private long tablebaseHits;
+
+    // How many nodes were cut off, and how many of those by the first move tried
+    private long cutoffs;
+    private long firstMoveCutoffs;
+
+    // How many moves were searched again after a null window or a reduced search beat alpha, and how many
+    // iterations were searched again after their score fell outside the aspiration window
+    private long researches;
+    private long aspirationResearches;
+    private long deadline;
+    private int maxDepth;
+    private int depth;
+    private int score;
+
+    // Whether the quiescence search tries quiet checks on its first ply too
+    private boolean quiescenceChecks;
+
+    // The selective search techniques that are switched on
+    private int pruning;
+
+    // Set by the main engine to stop its helpers, so it's read by another thread
+    private volatile boolean stopped;
+
+    Engine(TranspositionTable table) {
+        this(table, 1);
+    }
+
+    Engine(TranspositionTable table, int threads) {
+        this(table, threads, 0);
+    }
+
+    private Engine(TranspositionTable table, int threads, int id) {
+        super();
+        this.chessboard = new Chessboard();
+        this.table = table;
+        this.pawns = new PawnTable(Engine.PAWN_KILOBYTES);
+        this.helpers = new Engine[Math.max(threads, 1) - 1];
+        this.id = id;
+        this.moves = new MoveList[Engine.MAX_DEPTH + 1];
+        this.pickers = new MovePicker[Engine.MAX_DEPTH + 1];
+        this.killers = new int[Engine.MAX_DEPTH + 1][MovePicker.KILLERS];
+        this.history = new int[2 * ChessPiece.TYPES][Chessboard.SQUARES];
+        this.pv = new int[Engine.MAX_DEPTH + 1][Engine.MAX_DEPTH + 1];
+        this.pvLength = new int[Engine.MAX_DEPTH + 1];
+        this.position = new int[Tablebase.MAX_PIECES];
+        this.pruning = Engine.ALL_PRUNING;
+        this.output = System.out;
+
+        for (int ply = 0; ply <= Engine.MAX_DEPTH; ply++) {
+            this.moves[ply] = new MoveList();
+            this.pickers[ply] = new MovePicker();
+        }
+
+        for (int i = 0; i < this.helpers.length; i++) {
+            this.helpers[i] = new Engine(table, 1, i + 1);
+            this.helpers[i].setOutput(null);
+        }
+    }
+
+    // Runs "java Chess search <depth> [FEN]", "java Chess search scaling <depth>" or "java Chess search pruning
+    // <millis>". The time limit in milliseconds defaults to none and can be set with "-Dengine.millis=N",
+    // "-Dengine.threads=N" sets the number of threads, "-Dengine.hash=MB" sets the size of the transposition table,
+    // "-Dengine.checks=true" has the quiescence search try quiet checks, "-Dengine.nullmove=false",
+    // "-Dengine.reductions=false" and "-Dengine.futility=false" switch off selective search techniques and
+    // "-Dchess.tablebases=DIR" loads tablebases
+    static void run(String args[]) {
+        int millis = Integer.getInteger("engine.millis", 0);
+        int megabytes = Integer.getInteger("engine.hash", 16);
+        Engine engine = new Engine(new TranspositionTable(megabytes), Integer.getInteger("engine.threads", 1));
+        Chessboard chessboard = new Chessboard();
+        int pruning = Engine.ALL_PRUNING;
+        int depth;
+        int move;
+
+        engine.setQuiescenceChecks(Boolean.getBoolean("engine.checks"));
+
+        if (System.getProperty("engine.nullmove", "true").equals("false")) {
+            pruning &= ~Engine.NULL_MOVE;
+        }
+
+        if (System.getProperty("engine.reductions", "true").equals("false")) {
+            pruning &= ~Engine.LATE_MOVE_REDUCTIONS;
+        }
+
+        if (System.getProperty("engine.futility", "true").equals("false")) {
+            pruning &= ~Engine.FUTILITY;
+        }
+
+        engine.setPruning(pruning);
+
+        try {
+            if (args[1].equals("scaling")) {
+                Engine.scaling(Integer.parseInt(args[2]), megabytes);
+                return;
+            }
+
+            if (args[1].equals("pruning")) {
+                Engine.pruning(Integer.parseInt(args[2]), megabytes);
+                return;
+            }
+
+            depth = Integer.parseInt(args[1]);
+            chessboard.loadFen(args.length > 2
+                ? String.join(" ", Arrays.copyOfRange(args, 2, args.length))
+                : Chessboard.START_FEN);
+
+        } catch (IndexOutOfBoundsException e) {
+            Engine.printUsage();
+            return;
+
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            Engine.printUsage();
+            return;
+        }
+
+        if (System.getProperty("chess.tablebases") != null) {
+            try {
+                Tablebase.load(System.getProperty("chess.tablebases"));
+
+            } catch (IOException e) {
+                System.out.println("The tablebases can't be used: " + e.getMessage());
+            }
+        }
+
+        move = engine.think(chessboard, millis, depth);
+        System.out.println("Best move: " + (move == Move.NONE ? "none" : Move.name(move)));
+        System.out.println("Table: " + engine.table);
+        System.out.println("Pawn table: " + engine.pawns);
+
+        System.out.printf("Nodes: %d main, %d quiescence (%.1f%%)%n", engine.getNodes() - engine.getQuiescenceNodes(),
+            engine.getQuiescenceNodes(), 100.0 * engine.getQuiescenceNodes() / Math.max(engine.getNodes(), 1));
+
+        System.out.printf("Cutoffs: %d, %.1f%% by the first move%n", engine.getCutoffs(),
+            100 * engine.firstMoveCutoffRate());
+        System.out.printf("Re-searches: %d moves, %d aspiration windows%n", engine.getResearches(),
+            engine.getAspirationResearches());
+
+        if (Tablebase.count() > 0) {
+            System.out.println("Tablebase hits: " + engine.getTablebaseHits());
+        }
+    }
+
+    // Searches every scaling position to the depth with 1 to 16 threads, and prints how long it took to get there
+    // and how many nodes a second were searched. Each position starts from an empty table, so that the runs don't
+    // reuse each other's results
+    static void scaling(int depth, int megabytes) {
+        TranspositionTable table = new TranspositionTable(megabytes);
+        Chessboard chessboard = new Chessboard();
+        Engine warmup = new Engine(table);
+        long single = 0;
+
+        // The first searches run slower until the JIT has compiled them, which would flatter the other runs
+        warmup.setOutput(null);
+
+        for (String fen : Engine.SCALING_FENS) {
+            chessboard.loadFen(fen);
+            table.clear();
+            warmup.think(chessboard, 0, depth);
+        }
+
+        System.out.println("Threads   Time to depth " + depth + "          Nodes      Nodes/sec  Speedup");
+
+        for (int threads : Engine.SCALING_THREADS) {
+            Engine engine = new Engine(table, threads);
+            long nanos = 0;
+            long nodes = 0;
+
+            engine.setOutput(null);
+
+            for (String fen : Engine.SCALING_FENS) {
+                long start;
+
+                chessboard.loadFen(fen);
+                table.clear();
+                start = System.nanoTime();
+                engine.think(chessboard, 0, depth);
+                nanos += System.nanoTime() - start;
+                nodes += engine.getNodes();
+            }
+
+            if (threads == 1) {
+                single = nanos;
+            }
+
+            System.out.printf("%7d %15d ms %14d %14.0f %8.2f%n", threads, nanos / 1_000_000, nodes,
+                nodes * 1e9 / nanos, (double) single / nanos);
+        }
+
+        if (Engine.SCALING_THREADS[Engine.SCALING_THREADS.length - 1] > Runtime.getRuntime().availableProcessors()) {
+            System.out.println("Only " + Runtime.getRuntime().availableProcessors() + " cores are available, so the "
+                + "runs with more threads share them");
+        }
+    }
+
+    // Searches every scaling position for the time with no selective search technique, each one on its own and all
+    // of them, and prints the average depth each reached and how many nodes a second were searched
+    static void pruning(int millis, int megabytes) {
+        TranspositionTable table = new TranspositionTable(megabytes);
+        Chessboard chessboard = new Chessboard();
+        Engine engine = new Engine(table);
+
+        // The first searches run slower until the JIT has compiled them, which would flatter the other runs
+        engine.setOutput(null);
+
+        for (String fen : Engine.SCALING_FENS) {
+            chessboard.loadFen(fen);
+            table.clear();
+            engine.think(chessboard, millis, Engine.MAX_DEPTH);
+        }
+
+        System.out.println("Pruning                 Depth in " + millis + " ms      Nodes/sec");
+
+        for (int i = 0; i < Engine.PRUNING.length; i++) {
+            long nanos = 0;
+            long nodes = 0;
+            int depths = 0;
+
+            engine.setPruning(Engine.PRUNING[i]);
+
+            for (String fen : Engine.SCALING_FENS) {
+                long start;
+
+                chessboard.loadFen(fen);
+                table.clear();
+                start = System.nanoTime();
+                engine.think(chessboard, millis, Engine.MAX_DEPTH);
+                nanos += System.nanoTime() - start;
+                nodes += engine.getNodes();
+                depths += engine.getDepth();
+            }
+
+            System.out.printf("%-22s %16.1f %14.0f%n", Engine.PRUNING_NAMES[i],
+                (double) depths / Engine.SCALING_FENS.length, nodes * 1e9 / nanos);
+        }
+    }
+
+    void setOutput(PrintStream output) {
+        this.output = output;
+    }
+
+    void setBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    void setQuiescenceChecks(boolean quiescenceChecks) {
+        this.quiescenceChecks = quiescenceChecks;
+
+        for (Engine helper : this.helpers) {
+            helper.quiescenceChecks = quiescenceChecks;
+        }
+    }
+
+    // Switches on the selective search techniques of the mask (NULL_MOVE, LATE_MOVE_REDUCTIONS and FUTILITY) and
+    // switches off the rest
+    void setPruning(int pruning) {
+        this.pruning = pruning;
+
+        for (Engine helper : this.helpers) {
+            helper.pruning = pruning;
+        }
+    }
+
+    // Returns the nodes searched by every thread, in the main search and the quiescence search
+    long getNodes() {
+        long nodes = this.nodes + this.quiescenceNodes;
+
+        for (Engine helper : this.helpers) {
+            nodes += helper.nodes + helper.quiescenceNodes;
+        }
+
+        return nodes;
+    }
+
+    // Returns the nodes every thread searched in the quiescence search
+    long getQuiescenceNodes() {
+        long nodes = this.quiescenceNodes;
+
+        for (Engine helper : this.helpers) {
+            nodes += helper.quiescenceNodes;
+        }
+
+        return nodes;
+    }
+
+    // Returns the tablebase probes that found their position, over every thread
+    long getTablebaseHits() {
+        long hits = this.tablebaseHits;
+
+        for (Engine helper : this.helpers) {
+            hits += helper.tablebaseHits;
+        }
+
+        return hits;
+    }
+
+    // Returns the cutoffs of every thread
+    long getCutoffs() {
+        long cutoffs = this.cutoffs;
+
+        for (Engine helper : this.helpers) {
+            cutoffs += helper.cutoffs;
+        }
+
+        return cutoffs;
+    }
+
+    // Returns the share of the cutoffs of every thread that came from the first move tried, which shows how well
+    // the moves are ordered
+    double firstMoveCutoffRate() {
+        long first = this.firstMoveCutoffs;
+
+        for (Engine helper : this.helpers) {
+            first += helper.firstMoveCutoffs;
+        }
+
+        return this.getCutoffs() == 0 ? 0.0 : (double) first / this.getCutoffs();
+    }
+
+    // Returns the moves every thread searched again because they beat alpha with a null window or a reduced depth
+    long getResearches() {
+        long researches = this.researches;
+
+        for (Engine helper : this.helpers) {
+            researches += helper.researches;
+        }
+
+        return researches;
+    }
+
+    // Returns the iterations searched again with a wider window. Only the main engine uses aspiration windows
+    long getAspirationResearches() {
+        return this.aspirationResearches;
+    }
+
+    PawnTable getPawnTable() {
+        return this.pawns;
+    }
+
+    int getThreads() {
+        return this.helpers.length + 1;
+    }
+
+    // Returns the depth of the last finished iteration
+    int getDepth() {
+        return this.depth;
+    }
+
+    int getScore() {
+        return this.score;
+    }
+
+    // Returns the best move for the side to move of the board, or Move.NONE if it has none. The search stops after
+    // "millis" milliseconds (0 for no limit) or once "maxDepth" plies are searched, whichever comes first, and only
+    // the iterations it finished count. The board itself isn't played on
+    int think(Chessboard chessboard, long millis, int maxDepth) {
+        long start = System.nanoTime();
+        int best = Move.NONE;
+        int limit = Math.min(Math.max(maxDepth, 1), Engine.MAX_DEPTH);
+        Thread[] threads = new Thread[this.helpers.length];
+
+        if (this.book != null) {
+            best = this.book.pick(chessboard);
+
+            if (best != Move.NONE) {
+                if (this.output != null) {
+                    this.output.println("book move " + Move.name(best));
+                }
+
+                return best;
+            }
+        }
+
+        // Every move of a tablebase position leads to a result the tables know, so one ply finds the best
+        if (Tablebase.probe(chessboard, this.position) != Tablebase.NONE) {
+            limit = 1;
+        }
+
+        this.table.newSearch();
+        this.prepare(chessboard, limit);
+        this.deadline = millis > 0 ? start + millis * 1_000_000L : Long.MAX_VALUE;
+
+        for (int i = 0; i < this.helpers.length; i++) {
+            this.helpers[i].prepare(chessboard, limit);
+            threads[i] = new Thread(this.helpers[i], "Engine helper " + (i + 1));
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+
+        for (int depth = 1; depth <= limit; depth++) {
+            int score = this.aspirate(depth);
+
+            // An unfinished iteration may not have looked at the best move yet
+            if (this.stopped) {
+                break;
+            }
+
+            this.depth = depth;
+            this.score = score;
+            best = this.pvLength[0] > 0 ? this.pv[0][0] : Move.NONE;
+            this.extendPv();
+
+            if (this.output != null) {
+                this.report(System.nanoTime() - start);
+            }
+
+            // There's nothing more to find once a mate is certain, or if there's no move at all
+            if (best == Move.NONE || Math.abs(score) >= Engine.MATE_BOUND) {
+                break;
+            }
+
+            // The next iteration takes longer than all of the ones before it, so don't start one that can't finish
+            if (millis > 0 && 2 * (System.nanoTime() - start) > millis * 1_000_000L) {
+                break;
+            }
+        }
+
+        for (int i = 0; i < this.helpers.length; i++) {
+            this.helpers[i].stopped = true;
+        }
+
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Not even the first iteration finished, so fall back to any legal move
+        if (best == Move.NONE && this.stopped) {
+            this.chessboard.generateLegalMoves(this.moves[0]);
+            best = this.moves[0].size() > 0 ? this.moves[0].get(0) : Move.NONE;
+        }
+
+        return best;
+    }
+
+    // A helper deepens until the main engine stops it or it has searched every depth. Its results only reach the
+    // main engine through the table
+    @Override
+    public void run() {
+        for (int depth = 1 + (this.id & 1); depth <= this.maxDepth && !this.stopped; depth++) {
+            this.search(depth, -Engine.INFINITY, Engine.INFINITY, 0);
+        }
+    }
+
+    // Searches the root to the depth with a window around the last iteration's score, which cuts off more than a full
+    // window does. A score on or outside the window only bounds the real one, so the window is widened on that side
+    // and the root searched again until the score falls inside. Mates and the first iterations use a full window
+    private int aspirate(int depth) {
+        int delta = Engine.ASPIRATION_WINDOW;
+        int alpha = -Engine.INFINITY;
+        int beta = Engine.INFINITY;
+        int score;
+
+        if (depth >= Engine.ASPIRATION_DEPTH && Math.abs(this.score) < Engine.MATE_BOUND) {
+            alpha = this.score - delta;
+            beta = this.score + delta;
+        }
+
+        while (true) {
+            score = this.search(depth, alpha, beta, 0);
+
+            if (this.stopped) {
+                return score;
+            }
+
+            if (score <= alpha) {
+                alpha = Math.max(score - delta, -Engine.INFINITY);
+
+            } else if (score >= beta) {
+                beta = Math.min(score + delta, Engine.INFINITY);
+
+            } else {
+                return score;
+            }
+
+            this.aspirationResearches++;
+            delta *= 2;
+        }
+    }
+
+    private void prepare(Chessboard chessboard, int maxDepth) {
+        this.chessboard.copyFrom(chessboard);
+        this.deadline = Long.MAX_VALUE;
+        this.maxDepth = maxDepth;
+        this.stopped = false;
+        this.nodes = 0;
+        this.quiescenceNodes = 0;
+        this.tablebaseHits = 0;
+        this.cutoffs = 0;
+        this.firstMoveCutoffs = 0;
+        this.researches = 0;
+        this.aspirationResearches = 0;
+
+        // Killers belong to the positions of the last search, while history is only worth less as it gets older
+        for (int[] killers : this.killers) {
+            Arrays.fill(killers, Move.NONE);
+        }
+
+        MovePicker.ageHistory(this.history);
+        this.depth = 0;
+        this.score = 0;
+    }
+
+    private int search(int depth, int alpha, int beta, int ply) {
+        MovePicker picker = this.pickers[ply];
+        int side = this.chessboard.getSideToMove();
+        int originalAlpha = alpha;
+        boolean pvNode = beta - alpha > 1;
+        int best = -Engine.INFINITY;
+        int bestMove = Move.NONE;
+        int hashMove = Move.NONE;
+        int legalMoves = 0;
+        boolean inCheck;
+        boolean futile = false;
+        int found;
+        long data;
+
+        if (depth == 0) {
+            return this.quiesce(alpha, beta, ply, this.quiescenceChecks);
+        }
+
+        this.pvLength[ply] = 0;
+        this.nodes++;
+
+        if ((this.nodes & (Engine.CHECK_NODES - 1)) == 0 && System.nanoTime() >= this.deadline) {
+            this.stopped = true;
+        }
+
+        if (this.stopped) {
+            return 0;
+        }
+
+        if (ply > 0 && this.chessboard.isRepetition()) {
+            return Engine.DRAW;
+        }
+
+        // The root still searches, so that it has a move to play
+        if (ply > 0) {
+            found = Tablebase.probe(this.chessboard, this.position);
+
+            if (found != Tablebase.NONE) {
+                this.tablebaseHits++;
+                return Engine.tablebaseScore(found, ply);
+            }
+        }
+
+        if (ply == Engine.MAX_DEPTH) {
+            return this.chessboard.evaluate(this.pawns);
+        }
+
+        data = this.table.probe(this.chessboard.getKey());
+
+        if (data != TranspositionTable.NONE) {
+            hashMove = TranspositionTable.move(data);
+
+            // The root always searches, so that it has a line to report
+            if (ply > 0 && TranspositionTable.depth(data) >= depth) {
+                int stored = Engine.fromTable(TranspositionTable.score(data), ply);
+                int bound = TranspositionTable.bound(data);
+
+                if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER && stored >= beta)
+                    || (bound == TranspositionTable.UPPER && stored <= alpha)) {
+                    return stored;
+                }
+            }
+        }
+
+        inCheck = this.chessboard.inCheck(side);
+
+        // The root and the rest of the best line search every move, and a side in check has too few moves to leave
+        // any out
+        if (!pvNode && !inCheck && this.pruning != 0) {
+            int standing = this.chessboard.evaluate(this.pawns);
+
+            // Reverse futility pruning: the side is so far ahead near the leaves that no move the other side has
+            // will bring the score back below beta
+            if (this.uses(Engine.FUTILITY) && depth < Engine.FUTILITY_MARGINS.length
+                && Math.abs(beta) < Engine.MATE_BOUND && standing - Engine.FUTILITY_MARGINS[depth] >= beta) {
+                return standing;
+            }
+
+            // Null move pruning: if the side can pass and the other side still can't bring the score below beta,
+            // a real move would do even better. Passing never hurts only while the side isn't in zugzwang, which
+            // almost always means it has more than its King and Pawns, and never twice in a row
+            if (this.uses(Engine.NULL_MOVE) && depth >= 2 && standing >= beta
+                && this.chessboard.lastMove() != Move.NONE && this.hasPieces(side)) {
+                int score;
+                int reduction = Engine.NULL_MOVE_REDUCTION + (depth >= Engine.NULL_MOVE_DEEP ? 1 : 0);
+
+                this.chessboard.makeNullMove();
+                score = -this.search(Math.max(depth - 1 - reduction, 0), -beta, -beta + 1, ply + 1);
+                this.chessboard.unmakeNullMove();
+
+                if (this.stopped) {
+                    return 0;
+                }
+
+                // A mate found after passing isn't one the side can count on
+                if (score >= beta) {
+                    return score >= Engine.MATE_BOUND ? beta : score;
+                }
+            }
+
+            // Futility pruning: the side is so far behind near the leaves that no quiet move will bring the score up
+            // to alpha
+            futile = this.uses(Engine.FUTILITY) && depth < Engine.FUTILITY_MARGINS.length
+                && Math.abs(alpha) < Engine.MATE_BOUND && standing + Engine.FUTILITY_MARGINS[depth] <= alpha;
+        }
+
+        picker.reset(this.chessboard, hashMove, this.killers[ply], this.history);
+
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            boolean quiet = !Move.isCapture(move) && !Move.isPromotion(move);
+            boolean check;
+            int reduction = 0;
+            int score;
+
+            legalMoves++;
+            this.chessboard.makeMove(move);
+            check = this.chessboard.inCheck(this.chessboard.getSideToMove());
+
+            // The first move is always searched, so that the node has a score
+            if (futile && quiet && !check && legalMoves > 1) {
+                this.chessboard.unmakeMove();
+                continue;
+            }
+
+            // Late move reductions: the quiet moves the picker hands out last are the least likely to be best, so
+            // they're searched shallower first, and only searched to the full depth if they beat alpha
+            if (this.uses(Engine.LATE_MOVE_REDUCTIONS) && depth >= Engine.REDUCTION_DEPTH
+                && legalMoves >= Engine.LATE_MOVE && !inCheck && !check && picker.isLate()) {
+                reduction = legalMoves >= 2 * Engine.LATE_MOVE && depth >= Engine.DEEP_REDUCTION_DEPTH ? 2 : 1;
+            }
+
+            // Principal variation search: the first move is taken to be the best, so every other move only has to
+            // be shown to be no better, which a null window around alpha does with the fewest nodes. A move that
+            // beats alpha after all is searched again with the full window to find its score
+            if (legalMoves == 1) {
+                score = -this.search(depth - 1, -beta, -alpha, ply + 1);
+
+            } else {
+                score = -this.search(depth - 1 - reduction, -alpha - 1, -alpha, ply + 1);
+
+                if (reduction > 0 && score > alpha) {
+                    this.researches++;
+                    score = -this.search(depth - 1, -alpha - 1, -alpha, ply + 1);
+                }
+
+                if (score > alpha && score < beta) {
+                    this.researches++;
+                    score = -this.search(depth - 1, -beta, -alpha, ply + 1);
+                }
+            }
+
+            this.chessboard.unmakeMove();
+
+            if (this.stopped) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+
+                if (score > alpha) {
+                    alpha = score;
+                    this.updatePv(ply, move);
+
+                    if (alpha >= beta) {
+                        this.cutoff(move, depth, ply, legalMoves);
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (legalMoves == 0) {
+            return inCheck ? -Engine.MATE + ply : Engine.DRAW;
+        }
+
+        this.table.store(this.chessboard.getKey(), bestMove, Engine.toTable(best, ply), depth,
+            best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER);
+
+        return best;
+    }
+
+    // Searches only the captures and promotions, and the quiet checks if "checks" is set, until the position is
+    // quiet, so that a leaf isn't scored as if a piece that's about to be taken were safe. The side to move can
+    // stand pat on the static evaluation instead of taking, unless it's in check, when every move is searched. The
+    // captures that lose material by static exchange evaluation, and those that can't bring the score up to alpha,
+    // are left out
+    private int quiesce(int alpha, int beta, int ply, boolean checks) {
+        MovePicker picker = this.pickers[ply];
+        boolean inCheck = this.chessboard.inCheck(this.chessboard.getSideToMove());
+        int standPat = -Engine.INFINITY;
+        int best = -Engine.INFINITY;
+        int legalMoves = 0;
+        int found;
+
+        this.pvLength[ply] = 0;
+        this.quiescenceNodes++;
+
+        if ((this.quiescenceNodes & (Engine.CHECK_NODES - 1)) == 0 && System.nanoTime() >= this.deadline) {
+            this.stopped = true;
+        }
+
+        if (this.stopped) {
+            return 0;
+        }
+
+        if (this.chessboard.isRepetition()) {
+            return Engine.DRAW;
+        }
+
+        found = Tablebase.probe(this.chessboard, this.position);
+
+        if (found != Tablebase.NONE) {
+            this.tablebaseHits++;
+            return Engine.tablebaseScore(found, ply);
+        }
+
+        if (ply == Engine.MAX_DEPTH) {
+            return this.chessboard.evaluate(this.pawns);
+        }
+
+        if (inCheck) {
+            picker.reset(this.chessboard, Move.NONE, this.killers[ply], this.history);
+
+        } else {
+            standPat = this.chessboard.evaluate(this.pawns);
+            best = standPat;
+
+            if (standPat >= beta) {
+                return standPat;
+            }
+
+            alpha = Math.max(alpha, standPat);
+            picker.resetQuiescence(this.chessboard, this.history, checks);
+        }
+
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            int score;
+
+            legalMoves++;
+
+            if (!inCheck && Move.isCapture(move) && !Move.isPromotion(move)
+                && standPat + this.captured(move) + Engine.DELTA_MARGIN <= alpha) {
+                continue;
+            }
+
+            this.chessboard.makeMove(move);
+            score = -this.quiesce(-beta, -alpha, ply + 1, false);
+            this.chessboard.unmakeMove();
+
+            if (this.stopped) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+
+                if (score > alpha) {
+                    alpha = score;
+                    this.updatePv(ply, move);
+
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (inCheck && legalMoves == 0) {
+            return -Engine.MATE + ply;
+        }
+
+        return best;
+    }
+
+    // Returns the exchange value of the piece the capture takes
+    private int captured(int move) {
+        if (Move.flags(move) == Move.EN_PASSANT) {
+            return Evaluation.EXCHANGE_VALUES[ChessPiece.PAWN];
+        }
+
+        return Evaluation.EXCHANGE_VALUES[this.chessboard.pieceAt(Move.to(move)) % ChessPiece.TYPES];
+    }
+
+    private boolean uses(int technique) {
+        return (this.pruning & technique) != 0;
+    }
+
+    // Null moves are only tried when the side has a piece other than its King and Pawns. With only those, it's
+    // often in zugzwang, where passing would be better than any move it has
+    private boolean hasPieces(int side) {
+        ChessPlayer player = this.chessboard.getPlayer(side);
+
+        return player.getNumKnights() + player.getNumBishops() + player.getNumRooks() + player.getNumQueens() > 0;
+    }
+
+    // Counts the cutoff, and if the move was quiet makes it a killer of the ply and adds to its history
+    private void cutoff(int move, int depth, int ply, int legalMoves) {
+        this.cutoffs++;
+
+        if (legalMoves == 1) {
+            this.firstMoveCutoffs++;
+        }
+
+        if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+            MovePicker.addKiller(this.killers[ply], move);
+            MovePicker.addHistory(this.history, this.chessboard.pieceAt(Move.from(move)), move, depth);
+        }
+    }
+
+    // Nodes that were cut off by the table have no line of their own, which leaves the best line short, more so
+    // when helpers fill the table. This continues it with the legal moves the table holds after it
+    private void extendPv() {
+        int length = this.pvLength[0];
+
+        for (int i = 0; i < length; i++) {
+            this.chessboard.makeMove(this.pv[0][i]);
+        }
+
+        while (length < Engine.MAX_DEPTH && !this.chessboard.isRepetition()) {
+            MoveList moves = this.moves[length];
+            int move = TranspositionTable.move(this.table.probe(this.chessboard.getKey()));
+
+            this.chessboard.generateLegalMoves(moves);
+
+            if (move == Move.NONE || !moves.contains(move)) {
+                break;
+            }
+
+            this.chessboard.makeMove(move);
+            this.pv[0][length++] = move;
+        }
+
+        this.pvLength[0] = length;
+
+        for (int i = 0; i < length; i++) {
+            this.chessboard.unmakeMove();
+        }
+    }
+
+    // The line from this ply is the move followed by the line from the next ply
+    private void updatePv(int ply, int move) {
+        int length = this.pvLength[ply + 1];
+
+        this.pv[ply][0] = move;
+        System.arraycopy(this.pv[ply + 1], 0, this.pv[ply], 1, length);
+        this.pvLength[ply] = length + 1;
+    }
+
+    // A tablebase mate is worth the same as a mate the search found at the same distance from the root
+    private static int tablebaseScore(int found, int ply) {
+        if (Tablebase.result(found) == Tablebase.WIN) {
+            return Engine.MATE - ply - Tablebase.plies(found);
+        }
+
+        return Tablebase.result(found) == Tablebase.LOSS ? -Engine.MATE + ply + Tablebase.plies(found) : Engine.DRAW;
+    }
+
+    // Mate scores are stored as the distance from the stored position rather than from the root, so that they stay
+    // right when the position is reached at another ply
+    private static int toTable(int score, int ply) {
+        if (score >= Engine.MATE_BOUND) {
+            return score + ply;
+        }
+
+        return score <= -Engine.MATE_BOUND ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= Engine.MATE_BOUND) {
+            return score - ply;
+        }
+
+        return score <= -Engine.MATE_BOUND ? score + ply : score;
+    }
+
+    // Prints the depth, score, nodes, speed and best line of the iteration that just finished
+    private void report(long nanos) {
+        StringBuilder line = new StringBuilder();
+        String score;
+
+        if (this.score >= Engine.MATE_BOUND) {
+            score = "mate " + (Engine.MATE - this.score + 1) / 2;
+
+        } else if (this.score <= -Engine.MATE_BOUND) {
+            score = "mate -" + (Engine.MATE + this.score) / 2;
+
+        } else {
+            score = "cp " + this.score;
+        }
+
+        for (int i = 0; i < this.pvLength[0]; i++) {
+            line.append(' ').append(Move.name(this.pv[0][i]));
+        }
+
+        this.output.printf("depth %2d  score %-9s  nodes %10d  nps %9.0f  time %6d ms  pv%s%n", this.depth, score,
+            this.getNodes(), nanos == 0 ? 0 : this.getNodes() * 1e9 / nanos, nanos / 1_000_000, line);
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: java Chess search <depth> [FEN]");
+        System.out.println("       java Chess search scaling <depth>");
+        System.out.println("       java Chess search pruning <millis>");
+    }
+}
\ No newline at end of file
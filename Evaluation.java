@@ -0,0 +1,371 @@
+// Material and piece-square tables for the static evaluation. Each piece is worth one score in the middlegame and
+// another in the endgame, depending on its type and square, and the position's score blends the two by how much
+// material is left. "Chessboard" adds a piece's scores when it's placed and takes them away when it's lifted, so
+// evaluating a position is a read rather than a loop over its pieces
+class Evaluation {
+    // How much each type counts towards the middlegame. The starting position's pieces add up to MAX_PHASE
+    static final int MAX_PHASE = 24;
+    private static final int[] PHASES = {0, 1, 1, 2, 4, 0};
+
+    private static final int[] MIDDLEGAME_VALUES = {82, 337, 365, 477, 1025, 0};
+    private static final int[] ENDGAME_VALUES = {94, 281, 297, 512, 936, 0};
+
+    // Plain piece values for weighing exchanges of captures, with the King worth more than all the rest together
+    static final int[] EXCHANGE_VALUES = {100, 320, 330, 500, 900, 20000};
+
+    // The tables are laid out the way a board is printed from White's side: the first row is row 8
+    private static final int[][] MIDDLEGAME_TABLES = {
+        {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             98, 134,  61,  95,  68, 126,  34, -11,
+             -6,   7,  26,  31,  65,  56,  25, -20,
+            -14,  13,   6,  21,  23,  12,  17, -23,
+            -27,  -2,  -5,  12,  17,   6,  10, -25,
+            -26,  -4,  -4, -10,   3,   3,  33, -12,
+            -35,  -1, -20, -23, -15,  24,  38, -22,
+              0,   0,   0,   0,   0,   0,   0,   0
+        },
+        {
+           -167, -89, -34, -49,  61, -97, -15,-107,
+            -73, -41,  72,  36,  23,  62,   7, -17,
+            -47,  60,  37,  65,  84, 129,  73,  44,
+             -9,  17,  19,  53,  37,  69,  18,  22,
+            -13,   4,  16,  13,  28,  19,  21,  -8,
+            -23,  -9,  12,  10,  19,  17,  25, -16,
+            -29, -53, -12,  -3,  -1,  18, -14, -19,
+           -105, -21, -58, -33, -17, -28, -19, -23
+        },
+        {
+            -29,   4, -82, -37, -25, -42,   7,  -8,
+            -26,  16, -18, -13,  30,  59,  18, -47,
+            -16,  37,  43,  40,  35,  50,  37,  -2,
+             -4,   5,  19,  50,  37,  37,   7,  -2,
+             -6,  13,  13,  26,  34,  12,  10,   4,
+              0,  15,  15,  15,  14,  27,  18,  10,
+              4,  15,  16,   0,   7,  21,  33,   1,
+            -33,  -3, -14, -21, -13, -12, -39, -21
+        },
+        {
+             32,  42,  32,  51,  63,   9,  31,  43,
+             27,  32,  58,  62,  80,  67,  26,  44,
+             -5,  19,  26,  36,  17,  45,  61,  16,
+            -24, -11,   7,  26,  24,  35,  -8, -20,
+            -36, -26, -12,  -1,   9,  -7,   6, -23,
+            -45, -25, -16, -17,   3,   0,  -5, -33,
+            -44, -16, -20,  -9,  -1,  11,  -6, -71,
+            -19, -13,   1,  17,  16,   7, -37, -26
+        },
+        {
+            -28,   0,  29,  12,  59,  44,  43,  45,
+            -24, -39,  -5,   1, -16,  57,  28,  54,
+            -13, -17,   7,   8,  29,  56,  47,  57,
+            -27, -27, -16, -16,  -1,  17,  -2,   1,
+             -9, -26,  -9, -10,  -2,  -4,   3,  -3,
+            -14,   2, -11,  -2,  -5,   2,  14,   5,
+            -35,  -8,  11,   2,   8,  15,  -3,   1,
+             -1, -18,  -9,  10, -15, -25, -31, -50
+        },
+        {
+            -65,  23,  16, -15, -56, -34,   2,  13,
+             29,  -1, -20,  -7,  -8,  -4, -38, -29,
+             -9,  24,   2, -16, -20,   6,  22, -22,
+            -17, -20, -12, -27, -30, -25, -14, -36,
+            -49,  -1, -27, -39, -46, -44, -33, -51,
+            -14, -14, -22, -46, -44, -30, -15, -27,
+              1,   7,  -8, -64, -43, -16,   9,   8,
+            -15,  36,  12, -54,   8, -28,  24,  14
+        }
+    };
+    private static final int[][] ENDGAME_TABLES = {
+        {
+              0,   0,   0,   0,   0,   0,   0,   0,
+            178, 173, 158, 134, 147, 132, 165, 187,
+             94, 100,  85,  67,  56,  53,  82,  84,
+             32,  24,  13,   5,  -2,   4,  17,  17,
+             13,   9,  -3,  -7,  -7,  -8,   3,  -1,
+              4,   7,  -6,   1,   0,  -5,  -1,  -8,
+             13,   8,   8,  10,  13,   0,   2,  -7,
+              0,   0,   0,   0,   0,   0,   0,   0
+        },
+        {
+            -58, -38, -13, -28, -31, -27, -63, -99,
+            -25,  -8, -25,  -2,  -9, -25, -24, -52,
+            -24, -20,  10,   9,  -1,  -9, -19, -41,
+            -17,   3,  22,  22,  22,  11,   8, -18,
+            -18,  -6,  16,  25,  16,  17,   4, -18,
+            -23,  -3,  -1,  15,  10,  -3, -20, -22,
+            -42, -20, -10,  -5,  -2, -20, -23, -44,
+            -29, -51, -23, -15, -22, -18, -50, -64
+        },
+        {
+            -14, -21, -11,  -8,  -7,  -9, -17, -24,
+             -8,  -4,   7, -12,  -3, -13,  -4, -14,
+              2,  -8,   0,  -1,  -2,   6,   0,   4,
+             -3,   9,  12,   9,  14,  10,   3,   2,
+             -6,   3,  13,  19,   7,  10,  -3,  -9,
+            -12,  -3,   8,  10,  13,   3,  -7, -15,
+            -14, -18,  -7,  -1,   4,  -9, -15, -27,
+            -23,  -9, -23,  -5,  -9, -16,  -5, -17
+        },
+        {
+             13,  10,  18,  15,  12,  12,   8,   5,
+             11,  13,  13,  11,  -3,   3,   8,   3,
+              7,   7,   7,   5,   4,  -3,  -5,  -3,
+              4,   3,  13,   1,   2,   1,  -1,   2,
+              3,   5,   8,   4,  -5,  -6,  -8, -11,
+             -4,   0,  -5,  -1,  -7, -12,  -8, -16,
+             -6,  -6,   0,   2,  -9,  -9, -11,  -3,
+             -9,   2,   3,  -1,  -5, -13,   4, -20
+        },
+        {
+             -9,  22,  22,  27,  27,  19,  10,  20,
+            -17,  20,  32,  41,  58,  25,  30,   0,
+            -20,   6,   9,  49,  47,  35,  19,   9,
+              3,  22,  24,  45,  57,  40,  57,  36,
+            -18,  28,  19,  47,  31,  34,  39,  23,
+            -16, -27,  15,   6,   9,  17,  10,   5,
+            -22, -23, -30, -16, -16, -23, -36, -32,
+            -33, -28, -22, -43,  -5, -32, -20, -41
+        },
+        {
+            -74, -35, -18, -18, -11,  15,   4, -17,
+            -12,  17,  14,  17,  17,  38,  23,  11,
+             10,  17,  23,  15,  20,  45,  44,  13,
+             -8,  22,  24,  27,  26,  33,  26,   3,
+            -18,  -4,  21,  24,  27,  23,   9, -11,
+            -19,  -3,  11,  21,  23,  16,   7,  -9,
+            -27, -11,   4,  13,  14,   4,  -5, -17,
+            -53, -34, -21, -11, -28, -14, -24, -43
+        }
+    };
+
+    // Pawn structure terms, as middlegame and endgame scores packed by "pack()". Passed Pawns are worth more the
+    // further they've come, by their row counted from their own side
+    private static final int DOUBLED = Evaluation.pack(-10, -20);
+    private static final int ISOLATED = Evaluation.pack(-10, -15);
+    private static final int BACKWARD = Evaluation.pack(-8, -10);
+    private static final int[] PASSED = {
+        0,
+        0,
+        Evaluation.pack(5, 10),
+        Evaluation.pack(10, 20),
+        Evaluation.pack(15, 35),
+        Evaluation.pack(25, 60),
+        Evaluation.pack(40, 100),
+        Evaluation.pack(60, 150),
+        0
+    };
+
+    // Each of a King's own Pawns right in front of it or on the columns next to it
+    private static final int SHELTER = Evaluation.pack(12, 0);
+
+    // The squares of each column, and of the columns next to it, indexed from 0
+    private static final long[] COLUMNS = new long[Chessboard.WIDTH];
+    private static final long[] NEIGHBOR_COLUMNS = new long[Chessboard.WIDTH];
+
+    // For a Pawn of each side on each square: the squares in front of it on its column, the squares in front of it
+    // on its column and the ones next to it, which no enemy Pawn may hold for it to be passed, and the squares
+    // level with or behind it on the columns next to it, from which an own Pawn could still back it up
+    private static final long[][] FRONT = new long[2][Chessboard.SQUARES];
+    private static final long[][] PASSED_SPAN = new long[2][Chessboard.SQUARES];
+    private static final long[][] SUPPORT = new long[2][Chessboard.SQUARES];
+
+    // For a King of each side on each square: the two rows in front of it on its column and the ones next to it
+    private static final long[][] SHIELD = new long[2][Chessboard.SQUARES];
+
+    // The value plus table score of each piece code on each square, from White's point of view, so Black's are
+    // negative
+    private static final int[][] MIDDLEGAME = new int[2 * ChessPiece.TYPES][Chessboard.SQUARES];
+    private static final int[][] ENDGAME = new int[2 * ChessPiece.TYPES][Chessboard.SQUARES];
+
+    static {
+        for (int type = ChessPiece.PAWN; type <= ChessPiece.KING; type++) {
+            for (int square = 0; square < Chessboard.SQUARES; square++) {
+                // Square 0 is a1, which is the start of the last printed row. Black's pieces read the table
+                // upside down
+                int white = square ^ (Chessboard.SQUARES - Chessboard.WIDTH);
+                int black = square;
+
+                Evaluation.MIDDLEGAME[type][square] =
+                    Evaluation.MIDDLEGAME_VALUES[type] + Evaluation.MIDDLEGAME_TABLES[type][white];
+                Evaluation.ENDGAME[type][square] =
+                    Evaluation.ENDGAME_VALUES[type] + Evaluation.ENDGAME_TABLES[type][white];
+                Evaluation.MIDDLEGAME[ChessPiece.TYPES + type][square] =
+                    -Evaluation.MIDDLEGAME_VALUES[type] - Evaluation.MIDDLEGAME_TABLES[type][black];
+                Evaluation.ENDGAME[ChessPiece.TYPES + type][square] =
+                    -Evaluation.ENDGAME_VALUES[type] - Evaluation.ENDGAME_TABLES[type][black];
+            }
+        }
+    }
+
+    static {
+        for (int col = 0; col < Chessboard.WIDTH; col++) {
+            Evaluation.COLUMNS[col] = 0x0101010101010101L << col;
+        }
+
+        for (int col = 0; col < Chessboard.WIDTH; col++) {
+            Evaluation.NEIGHBOR_COLUMNS[col] = (col > 0 ? Evaluation.COLUMNS[col - 1] : Bitboard.EMPTY)
+                | (col < Chessboard.WIDTH - 1 ? Evaluation.COLUMNS[col + 1] : Bitboard.EMPTY);
+        }
+
+        for (int square = 0; square < Chessboard.SQUARES; square++) {
+            int row = Bitboard.row(square);
+            int col = Bitboard.col(square) - 1;
+            long wide = Evaluation.COLUMNS[col] | Evaluation.NEIGHBOR_COLUMNS[col];
+
+            for (int other = 0; other < Chessboard.SQUARES; other++) {
+                long bit = Bitboard.bit(other);
+                int otherRow = Bitboard.row(other);
+
+                if (otherRow > row) {
+                    Evaluation.FRONT[Chessboard.WHITE][square] |= bit & Evaluation.COLUMNS[col];
+                    Evaluation.PASSED_SPAN[Chessboard.WHITE][square] |= bit & wide;
+
+                } else {
+                    Evaluation.SUPPORT[Chessboard.WHITE][square] |= bit & Evaluation.NEIGHBOR_COLUMNS[col];
+                }
+
+                if (otherRow < row) {
+                    Evaluation.FRONT[Chessboard.BLACK][square] |= bit & Evaluation.COLUMNS[col];
+                    Evaluation.PASSED_SPAN[Chessboard.BLACK][square] |= bit & wide;
+
+                } else {
+                    Evaluation.SUPPORT[Chessboard.BLACK][square] |= bit & Evaluation.NEIGHBOR_COLUMNS[col];
+                }
+
+                if (otherRow == row + 1 || otherRow == row + 2) {
+                    Evaluation.SHIELD[Chessboard.WHITE][square] |= bit & wide;
+                }
+
+                if (otherRow == row - 1 || otherRow == row - 2) {
+                    Evaluation.SHIELD[Chessboard.BLACK][square] |= bit & wide;
+                }
+            }
+        }
+    }
+
+    private Evaluation() {
+        super();
+    }
+
+    static int middlegame(int code, int square) {
+        return Evaluation.MIDDLEGAME[code][square];
+    }
+
+    static int endgame(int code, int square) {
+        return Evaluation.ENDGAME[code][square];
+    }
+
+    // Packs a middlegame and an endgame score into one int, so both can be added up at once. The middlegame score
+    // is the low 16 bits and the endgame score is the rest, less the borrow of a negative middlegame score
+    static int pack(int middlegame, int endgame) {
+        return (endgame << 16) + middlegame;
+    }
+
+    static int middlegameOf(int score) {
+        return (short) score;
+    }
+
+    static int endgameOf(int score) {
+        return (short) ((score + 0x8000) >> 16);
+    }
+
+    // Returns the doubled, isolated, backward and passed Pawn terms of both sides as a packed score from White's
+    // point of view. They only depend on where the Pawns are, so "PawnTable" caches them by the pawn key
+    static int pawnStructure(long whitePawns, long blackPawns) {
+        return Evaluation.pawnStructure(Chessboard.WHITE, whitePawns, blackPawns)
+            - Evaluation.pawnStructure(Chessboard.BLACK, blackPawns, whitePawns);
+    }
+
+    private static int pawnStructure(int side, long pawns, long enemies) {
+        int score = 0;
+        long remaining = pawns;
+
+        for (int col = 0; col < Chessboard.WIDTH; col++) {
+            int count = Bitboard.count(pawns & Evaluation.COLUMNS[col]);
+
+            if (count > 1) {
+                score += (count - 1) * Evaluation.DOUBLED;
+            }
+        }
+
+        while (remaining != 0) {
+            int square = Bitboard.first(remaining);
+            int col = Bitboard.col(square) - 1;
+            int stop = side == Chessboard.WHITE ? square + Chessboard.WIDTH : square - Chessboard.WIDTH;
+            int row = side == Chessboard.WHITE ? Bitboard.row(square) : Chessboard.HEIGHT + 1 - Bitboard.row(square);
+
+            if ((pawns & Evaluation.NEIGHBOR_COLUMNS[col]) == 0) {
+                score += Evaluation.ISOLATED;
+
+            } else if ((pawns & Evaluation.SUPPORT[side][square]) == 0
+                && (Pawn.attacks(stop, side) & enemies) != 0) {
+                // Backward: no own Pawn can come up to defend it, and an enemy Pawn guards the square it moves to
+                score += Evaluation.BACKWARD;
+            }
+
+            // A Pawn behind another of its own isn't passed, even if nothing of the enemy's is in its way
+            if ((enemies & Evaluation.PASSED_SPAN[side][square]) == 0 && (pawns & Evaluation.FRONT[side][square]) == 0) {
+                score += Evaluation.PASSED[row];
+            }
+
+            remaining &= remaining - 1;
+        }
+
+        return score;
+    }
+
+    // Returns the bonus of each King for the Pawns of its own in front of it, as a packed score from White's point
+    // of view. It depends on where the Kings are too, so it isn't cached with the pawn structure
+    static int kingShelter(Chessboard chessboard) {
+        long whitePawns = chessboard.getPieces(Chessboard.WHITE, ChessPiece.PAWN);
+        long blackPawns = chessboard.getPieces(Chessboard.BLACK, ChessPiece.PAWN);
+        int whiteKing = chessboard.kingSquare(Chessboard.WHITE);
+        int blackKing = chessboard.kingSquare(Chessboard.BLACK);
+        int score = 0;
+
+        if (whiteKing != Chessboard.NO_SQUARE) {
+            score += Evaluation.SHELTER * Bitboard.count(whitePawns & Evaluation.SHIELD[Chessboard.WHITE][whiteKing]);
+        }
+
+        if (blackKing != Chessboard.NO_SQUARE) {
+            score -= Evaluation.SHELTER * Bitboard.count(blackPawns & Evaluation.SHIELD[Chessboard.BLACK][blackKing]);
+        }
+
+        return score;
+    }
+
+    // Returns how far from the endgame a player's pieces are, counting minor pieces 1, Rooks 2 and Queens 4
+    static int phase(ChessPlayer player) {
+        return Evaluation.PHASES[ChessPiece.KNIGHT] * player.getNumKnights()
+            + Evaluation.PHASES[ChessPiece.BISHOP] * player.getNumBishops()
+            + Evaluation.PHASES[ChessPiece.ROOK] * player.getNumRooks()
+            + Evaluation.PHASES[ChessPiece.QUEEN] * player.getNumQueens();
+    }
+
+    // Blends the middlegame and endgame scores by the phase. Promotions can take the phase past MAX_PHASE, which
+    // counts as a plain middlegame
+    static int taper(int middlegame, int endgame, int phase) {
+        int weight = Math.min(phase, Evaluation.MAX_PHASE);
+
+        return (middlegame * weight + endgame * (Evaluation.MAX_PHASE - weight)) / Evaluation.MAX_PHASE;
+    }
+
+    // Returns the middlegame or endgame score of the board's pieces, worked out from scratch. Only meant for
+    // checking the incremental scores
+    static int compute(Chessboard chessboard, boolean endgame) {
+        int[][] scores = endgame ? Evaluation.ENDGAME : Evaluation.MIDDLEGAME;
+        int score = 0;
+
+        for (int code = 0; code < 2 * ChessPiece.TYPES; code++) {
+            long remaining = chessboard.getPieces(code / ChessPiece.TYPES, code % ChessPiece.TYPES);
+
+            while (remaining != 0) {
+                score += scores[code][Bitboard.first(remaining)];
+                remaining &= remaining - 1;
+            }
+        }
+
+        return score;
+    }
+}
\ No newline at end of file
@@ -1,6 +1,15 @@
-import java.util.HashSet;
-
 class King extends ChessPiece {
+    static final int[][] STEPS = {{1, 0}, {1, -1}, {1, 1}, {0, -1}, {0, 1}, {-1, 0}, {-1, -1}, {-1, 1}};
+
+    // The squares attacked by a King on each square
+    private static final long[] ATTACKS = new long[Chessboard.SQUARES];
+
+    static {
+        for (int square = 0; square < Chessboard.SQUARES; square++) {
+            King.ATTACKS[square] = ChessPiece.stepAttacks(square, King.STEPS);
+        }
+    }
+
     private boolean canCastle;
 
     King(ChessPlayer owner, Position start) {
@@ -12,12 +21,19 @@ class King extends ChessPiece {
         return this.canCastle;
     }
 
+    void setCanCastle(boolean canCastle) {
+        this.canCastle = canCastle;
+    }
+
+    @Override
+    int getType() {
+        return ChessPiece.KING;
+    }
+
     @Override
     boolean move(Chessboard chessboard, Position dest) {
         int destRow = dest.getRow();
         int destCol = dest.getCol();
-        int thisRow = this.getPos().getRow();
-        int thisCol = this.getPos().getCol();
         boolean samePosition;
         boolean outOfBounds;
         boolean canCastleP1R1;
@@ -46,50 +62,42 @@ class King extends ChessPiece {
             outOfBounds = destRow < 1 || destRow > 8 || destCol < 1 || destCol > 8;
 
             if (!outOfBounds) {
-                canCastleP1R1 = this.getOwner() == Chess.PLAYER1
+                canCastleP1R1 = this.getOwner().getSide() == Chessboard.WHITE
                     && chessboard.containsPiece("R1")
                     && ((Rook) chessboard.getPiece("R1")).canCastle()
                     && this.canCastle
                     && destRow == 1
                     && destCol == 3;
-                canCastleP1R2 = this.getOwner() == Chess.PLAYER1
+                canCastleP1R2 = this.getOwner().getSide() == Chessboard.WHITE
                     && chessboard.containsPiece("R2")
                     && ((Rook) chessboard.getPiece("R2")).canCastle()
                     && this.canCastle
                     && destRow == 1
                     && destCol == 7;
-                canCastleP2R1 = this.getOwner() == Chess.PLAYER2
+                canCastleP2R1 = this.getOwner().getSide() == Chessboard.BLACK
                     && chessboard.containsPiece("r1")
                     && ((Rook) chessboard.getPiece("r1")).canCastle()
                     && this.canCastle
                     && destRow == 8
                     && destCol == 3;
-                canCastleP2R2 = this.getOwner() == Chess.PLAYER2
+                canCastleP2R2 = this.getOwner().getSide() == Chessboard.BLACK
                     && chessboard.containsPiece("r2")
                     && ((Rook) chessboard.getPiece("r2")).canCastle()
                     && this.canCastle
                     && destRow == 8
                     && destCol == 7;
                 canCastle = canCastleP1R1 || canCastleP1R2 || canCastleP2R1 || canCastleP2R2;   
-                validMove = (destRow == thisRow + 1 && destCol == thisCol)
-                    || (destRow == thisRow + 1 && destCol == thisCol - 1)
-                    || (destRow == thisRow + 1 && destCol == thisCol + 1)
-                    || (destRow == thisRow && destCol == thisCol - 1)
-                    || (destRow == thisRow && destCol == thisCol + 1)
-                    || (destRow == thisRow - 1 && destCol == thisCol)
-                    || (destRow == thisRow - 1 && destCol == thisCol - 1)
-                    || (destRow == thisRow - 1 && destCol == thisCol + 1)
-                    || canCastle;
+                validMove = Bitboard.contains(King.attacks(this.getPos().getSquare()), dest.getSquare()) || canCastle;
 
                 if (validMove) {
                     if (canCastle) {
                         if (canCastleP1R1) {
-                            KiPos = new Position(1, 3);
-                            RPos = new Position(1, 4);
+                            KiPos = Position.of(1, 3);
+                            RPos = Position.of(1, 4);
 
                             if (!chessboard.vacantSpot(RPos)
                                 || !chessboard.vacantSpot(KiPos)
-                                || !chessboard.vacantSpot(new Position(1, 2))) {
+                                || !chessboard.vacantSpot(Position.of(1, 2))) {
                                 return false;
                             }
 
@@ -103,8 +111,8 @@ class King extends ChessPiece {
                             this.canCastle = false;
                 
                         } else if (canCastleP1R2) {
-                            KiPos = new Position(1, 7);
-                            RPos = new Position(1, 6);
+                            KiPos = Position.of(1, 7);
+                            RPos = Position.of(1, 6);
 
                             if (!chessboard.vacantSpot(RPos)
                                 || !chessboard.vacantSpot(KiPos)) {
@@ -121,12 +129,12 @@ class King extends ChessPiece {
                             this.canCastle = false;
 
                         } else if (canCastleP2R1) {
-                            KiPos = new Position(8, 3);
-                            RPos = new Position(8, 4);
+                            KiPos = Position.of(8, 3);
+                            RPos = Position.of(8, 4);
 
                             if (!chessboard.vacantSpot(RPos)
                                 || !chessboard.vacantSpot(KiPos)
-                                || !chessboard.vacantSpot(new Position(8, 2))) {
+                                || !chessboard.vacantSpot(Position.of(8, 2))) {
                                 return false;
                             }
 
@@ -140,8 +148,8 @@ class King extends ChessPiece {
                             this.canCastle = false;
 
                         } else if (canCastleP2R2) {
-                            KiPos = new Position(8, 7);
-                            RPos = new Position(8, 6);
+                            KiPos = Position.of(8, 7);
+                            RPos = Position.of(8, 6);
 
                             if (!chessboard.vacantSpot(RPos)
                                 || !chessboard.vacantSpot(KiPos)) {
@@ -174,12 +182,7 @@ class King extends ChessPiece {
                         this.canCastle = false;
 
                         if (this.targetsKing(chessboard)) {
-                            if (this.getOwner() == Chess.PLAYER1) {
-                                Chess.PLAYER2.checked();
-    
-                            } else {
-                                Chess.PLAYER1.checked();
-                            }
+                            chessboard.getOpponent(this.getOwner()).checked();
                         }
                     }
 
@@ -198,158 +201,36 @@ class King extends ChessPiece {
         return true;
     }
 
-    @Override
-    boolean targetsKing(Chessboard chessboard) {
-        int thisRow = this.getPos().getRow();
-        int thisCol = this.getPos().getCol();
-        int kingRow;
-        int kingCol;
-
-        if (this.getOwner() == Chess.PLAYER1) {
-            kingRow = chessboard.getPiece("ki").getPos().getRow();
-            kingCol = chessboard.getPiece("ki").getPos().getCol();
-
-        } else {
-            kingRow = chessboard.getPiece("Ki").getPos().getRow();
-            kingCol = chessboard.getPiece("Ki").getPos().getCol();
-        }
-               
-        return (kingRow == thisRow + 1 && kingCol == thisCol)
-            || (kingRow == thisRow + 1 && kingCol == thisCol - 1)
-            || (kingRow == thisRow + 1 && kingCol == thisCol + 1)
-            || (kingRow == thisRow && kingCol == thisCol - 1)
-            || (kingRow == thisRow && kingCol == thisCol + 1)
-            || (kingRow == thisRow - 1 && kingCol == thisCol)
-            || (kingRow == thisRow - 1 && kingCol == thisCol - 1)
-            || (kingRow == thisRow - 1 && kingCol == thisCol + 1);
+    // Returns the squares attacked by a King on the square
+    static long attacks(int square) {
+        return King.ATTACKS[square];
     }
 
-    @Override
-    HashSet<Position> possibleMoves(Chessboard chessboard) {
-        HashSet<Position> moves = new HashSet<Position>();
-        int thisRow = this.getPos().getRow();
-        int thisCol = this.getPos().getCol();
-        Position pos = new Position(thisRow + 1, thisCol);
-        boolean canCastleR1;
-        boolean canCastleR2;
-
-        if (!chessboard.friendlyFire(this.getOwner(), pos) && chessboard.onBoard(pos)) {
-            moves.add(new Position(pos.getRow(), pos.getCol()));
-        }
-
-        pos.setPosition(thisRow + 1, thisCol - 1);
+    // Adds the moves of the King on the square to the list, including castling when the King and Rook haven't
+    // moved and the spaces between them are vacant
+    static void generateMoves(Chessboard chessboard, int from, MoveList moves, int kind) {
+        int side = chessboard.pieceAt(from) / ChessPiece.TYPES;
+        int kingside = side == Chessboard.WHITE ? Chessboard.WHITE_KINGSIDE : Chessboard.BLACK_KINGSIDE;
+        int queenside = side == Chessboard.WHITE ? Chessboard.WHITE_QUEENSIDE : Chessboard.BLACK_QUEENSIDE;
+        long occupied = chessboard.getOccupied();
 
-        if (!chessboard.friendlyFire(this.getOwner(), pos) && chessboard.onBoard(pos)) {
-            moves.add(new Position(pos.getRow(), pos.getCol()));
-        }
-
-        pos.setPosition(thisRow + 1, thisCol + 1);
+        ChessPiece.addMoves(chessboard, from, King.ATTACKS[from], moves, kind);
 
-        if (!chessboard.friendlyFire(this.getOwner(), pos) && chessboard.onBoard(pos)) {
-            moves.add(new Position(pos.getRow(), pos.getCol()));
+        if (!MoveList.wanted(kind, false)) {
+            return;
         }
 
-        pos.setPosition(thisRow, thisCol - 1);
-
-        if (!chessboard.friendlyFire(this.getOwner(), pos) && chessboard.onBoard(pos)) {
-            moves.add(new Position(pos.getRow(), pos.getCol()));
+        if ((chessboard.getCastlingRights() & kingside) != 0
+            && !Bitboard.contains(occupied, from + 1)
+            && !Bitboard.contains(occupied, from + 2)) {
+            moves.add(Move.encode(from, from + 2, Move.KING_CASTLE));
         }
 
-        pos.setPosition(thisRow, thisCol + 1);
-
-        if (!chessboard.friendlyFire(this.getOwner(), pos) && chessboard.onBoard(pos)) {
-            moves.add(new Position(pos.getRow(), pos.getCol()));
+        if ((chessboard.getCastlingRights() & queenside) != 0
+            && !Bitboard.contains(occupied, from - 1)
+            && !Bitboard.contains(occupied, from - 2)
+            && !Bitboard.contains(occupied, from - 3)) {
+            moves.add(Move.encode(from, from - 2, Move.QUEEN_CASTLE));
         }
-
-        pos.setPosition(thisRow - 1, thisCol);
-
-        if (!chessboard.friendlyFire(this.getOwner(), pos) && chessboard.onBoard(pos)) {
-            moves.add(new Position(pos.getRow(), pos.getCol()));
-        }
-
-        pos.setPosition(thisRow - 1, thisCol - 1);
-
-        if (!chessboard.friendlyFire(this.getOwner(), pos) && chessboard.onBoard(pos)) {
-            moves.add(new Position(pos.getRow(), pos.getCol()));
-        }
-
-        pos.setPosition(thisRow - 1, thisCol + 1);
-
-        if (!chessboard.friendlyFire(this.getOwner(), pos) && chessboard.onBoard(pos)) {
-            moves.add(new Position(pos.getRow(), pos.getCol()));
-        }
-
-        if (this.getOwner() == Chess.PLAYER1) {
-            canCastleR1 = chessboard.containsPiece("R1")
-                && ((Rook) chessboard.getPiece("R1")).canCastle()
-                && this.canCastle;
-
-            pos.setPosition(thisRow, thisCol - 1);
-
-            canCastleR1 = canCastleR1 && chessboard.vacantSpot(pos);
-
-            pos.setPosition(thisRow, thisCol - 2);
-
-            canCastleR1 = canCastleR1
-                && chessboard.vacantSpot(pos)
-                && chessboard.vacantSpot(new Position(thisRow, thisCol - 3));
-
-            if (canCastleR1) {
-                moves.add(new Position(pos.getRow(), pos.getCol()));
-            }
-
-            canCastleR2 = chessboard.containsPiece("R2")
-                && ((Rook) chessboard.getPiece("R2")).canCastle()
-                && this.canCastle;
-
-            pos.setPosition(thisRow, thisCol + 1);
-            
-            canCastleR2 = canCastleR2 && chessboard.vacantSpot(pos);
-
-            pos.setPosition(thisRow, thisCol + 2);
-
-            canCastleR2 = canCastleR2 && chessboard.vacantSpot(pos);
-
-            if (canCastleR2) {
-                moves.add(new Position(pos.getRow(), pos.getCol()));
-            }
-
-        } else {
-            canCastleR1 = chessboard.containsPiece("r1")
-                && ((Rook) chessboard.getPiece("r1")).canCastle()
-                && this.canCastle;
-
-            pos.setPosition(thisRow, thisCol - 1);
-
-            canCastleR1 = canCastleR1 && chessboard.vacantSpot(pos);
-
-            pos.setPosition(thisRow, thisCol - 2);
-
-            canCastleR1 = canCastleR1
-                && chessboard.vacantSpot(pos)
-                && chessboard.vacantSpot(new Position(thisRow, thisCol - 3));
-
-            if (canCastleR1) {
-                moves.add(new Position(pos.getRow(), pos.getCol()));
-            }
-
-            canCastleR2 = chessboard.containsPiece("r2")
-                && ((Rook) chessboard.getPiece("r2")).canCastle()
-                && this.canCastle;
-
-            pos.setPosition(thisRow, thisCol + 1);
-            
-            canCastleR2 = canCastleR2 && chessboard.vacantSpot(pos);
-            
-            pos.setPosition(thisRow, thisCol + 2);
-
-            canCastleR2 = canCastleR2 && chessboard.vacantSpot(pos);
-
-            if (canCastleR2) {
-                moves.add(new Position(pos.getRow(), pos.getCol()));
-            }
-        }
-
-        return moves;
     }
 }
\ No newline at end of file
@@ -1,16 +1,28 @@
-import java.util.HashSet;
-
 class Knight extends ChessPiece {
+    static final int[][] STEPS = {{2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}, {1, 2}, {2, 1}};
+
+    // The squares attacked by a Knight on each square
+    private static final long[] ATTACKS = new long[Chessboard.SQUARES];
+
+    static {
+        for (int square = 0; square < Chessboard.SQUARES; square++) {
+            Knight.ATTACKS[square] = ChessPiece.stepAttacks(square, Knight.STEPS);
+        }
+    }
+
     Knight(ChessPlayer owner, Position start) {
         super(owner, start);
     }
 
+    @Override
+    int getType() {
+        return ChessPiece.KNIGHT;
+    }
+
     @Override
     boolean move(Chessboard chessboard, Position dest) {
         int destRow = dest.getRow();
         int destCol = dest.getCol();
-        int thisRow = this.getPos().getRow();
-        int thisCol = this.getPos().getCol();
         boolean samePosition;
         boolean outOfBounds;
         boolean validMove;
@@ -32,14 +44,7 @@ class Knight extends ChessPiece {
             outOfBounds = destRow < 1 || destRow > 8 || destCol < 1 || destCol > 8;
 
             if (!outOfBounds) {
-                validMove = (destRow == thisRow + 2 && destCol == thisCol - 1)
-                    || (destRow == thisRow + 1 && destCol == thisCol - 2)
-                    || (destRow == thisRow - 1 && destCol == thisCol - 2)
-                    || (destRow == thisRow - 2 && destCol == thisCol - 1)
-                    || (destRow == thisRow - 2 && destCol == thisCol + 1)
-                    || (destRow == thisRow - 1 && destCol == thisCol + 2)
-                    || (destRow == thisRow + 1 && destCol == thisCol + 2)
-                    || (destRow == thisRow + 2 && destCol == thisCol + 1);
+                validMove = Bitboard.contains(Knight.attacks(this.getPos().getSquare()), dest.getSquare());
 
                 if (validMove) {
                     if (chessboard.friendlyFire(this.getOwner(), dest)) {
@@ -55,12 +60,7 @@ class Knight extends ChessPiece {
                     chessboard.movePiece(this.getPos(), dest);
 
                     if (this.targetsKing(chessboard)) {
-                        if (this.getOwner() == Chess.PLAYER1) {
-                            Chess.PLAYER2.checked();
-
-                        } else {
-                            Chess.PLAYER1.checked();
-                        }
+                        chessboard.getOpponent(this.getOwner()).checked();
                     }
 
                 } else {
@@ -78,85 +78,13 @@ class Knight extends ChessPiece {
         return true;
     }
 
-    @Override
-    boolean targetsKing(Chessboard chessboard) {
-        int thisRow = this.getPos().getRow();
-        int thisCol = this.getPos().getCol();
-        int kingRow;
-        int kingCol;
-
-        if (this.getOwner() == Chess.PLAYER1) {
-            kingRow = chessboard.getPiece("ki").getPos().getRow();
-            kingCol = chessboard.getPiece("ki").getPos().getCol();
-
-        } else {
-            kingRow = chessboard.getPiece("Ki").getPos().getRow();
-            kingCol = chessboard.getPiece("Ki").getPos().getCol();
-        }
-
-        return (kingRow == thisRow + 2 && kingCol == thisCol - 1)
-            || (kingRow == thisRow + 1 && kingCol == thisCol - 2)
-            || (kingRow == thisRow - 1 && kingCol == thisCol - 2)
-            || (kingRow == thisRow - 2 && kingCol == thisCol - 1)
-            || (kingRow == thisRow - 2 && kingCol == thisCol + 1)
-            || (kingRow == thisRow - 1 && kingCol == thisCol + 2)
-            || (kingRow == thisRow + 1 && kingCol == thisCol + 2)
-            || (kingRow == thisRow + 2 && kingCol == thisCol + 1);
+    // Returns the squares attacked by a Knight on the square
+    static long attacks(int square) {
+        return Knight.ATTACKS[square];
     }
 
-    @Override
-    HashSet<Position> possibleMoves(Chessboard chessboard) {
-        HashSet<Position> moves = new HashSet<Position>();
-        int thisRow = this.getPos().getRow();
-        int thisCol = this.getPos().getCol();
-        Position pos = new Position(thisRow + 2, thisCol - 1);
-
-        if (!chessboard.friendlyFire(this.getOwner(), pos) && chessboard.onBoard(pos)) {
-            moves.add(new Position(pos.getRow(), pos.getCol()));
-        }
-
-        pos.setPosition(thisRow + 1, thisCol - 2);
-
-        if (!chessboard.friendlyFire(this.getOwner(), pos) && chessboard.onBoard(pos)) {
-            moves.add(new Position(pos.getRow(), pos.getCol()));
-        }
-
-        pos.setPosition(thisRow - 1, thisCol - 2);
-
-        if (!chessboard.friendlyFire(this.getOwner(), pos) && chessboard.onBoard(pos)) {
-            moves.add(new Position(pos.getRow(), pos.getCol()));
-        }
-
-        pos.setPosition(thisRow - 2, thisCol - 1);
-
-        if (!chessboard.friendlyFire(this.getOwner(), pos) && chessboard.onBoard(pos)) {
-            moves.add(new Position(pos.getRow(), pos.getCol()));
-        }
-
-        pos.setPosition(thisRow - 2, thisCol + 1);
-
-        if (!chessboard.friendlyFire(this.getOwner(), pos) && chessboard.onBoard(pos)) {
-            moves.add(new Position(pos.getRow(), pos.getCol()));
-        }
-
-        pos.setPosition(thisRow - 1, thisCol + 2);
-
-        if (!chessboard.friendlyFire(this.getOwner(), pos) && chessboard.onBoard(pos)) {
-            moves.add(new Position(pos.getRow(), pos.getCol()));
-        }
-
-        pos.setPosition(thisRow + 1, thisCol + 2);
-
-        if (!chessboard.friendlyFire(this.getOwner(), pos) && chessboard.onBoard(pos)) {
-            moves.add(new Position(pos.getRow(), pos.getCol()));
-        }
-
-        pos.setPosition(thisRow + 2, thisCol + 1);
-
-        if (!chessboard.friendlyFire(this.getOwner(), pos) && chessboard.onBoard(pos)) {
-            moves.add(new Position(pos.getRow(), pos.getCol()));
-        }
-
-        return moves;
+    // Adds the moves of the Knight on the square to the list
+    static void generateMoves(Chessboard chessboard, int from, MoveList moves, int kind) {
+        ChessPiece.addMoves(chessboard, from, Knight.ATTACKS[from], moves, kind);
     }
 }
\ No newline at end of file
@@ -0,0 +1,209 @@
+// Magic bitboard tables for sliding pieces. The occupied squares that can block a slider on a square are multiplied
+// by a "magic" number whose top bits index a table of precomputed attack sets. The magics below were found with
+// "findMagic()", so class initialization only has to fill the tables. It happens the first time a slider is looked
+// at, and "INIT_NANOS" records how long it took, which perft and the benchmark print
+class Magic {
+    static final long INIT_NANOS;
+
+    private static final long[] ROOK_MASKS = new long[Chessboard.SQUARES];
+    private static final long[] ROOK_MAGICS = {
+        0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800L,
+        0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+        0x0400800040008021L, 0x0400400020005000L, 0x8240801000200080L, 0x8611001004200900L,
+        0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280L,
+        0x0080004000402000L, 0xE010104000402000L, 0x0800808010002000L, 0xA280210008100100L,
+        0x0001818014000800L, 0xA002010100080400L, 0x0080240001020870L, 0x0001020004048845L,
+        0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0200080080100080L,
+        0x8083080100100500L, 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+        0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+        0x4540040080800800L, 0x0002001004040020L, 0x0281195814001002L, 0x1240800040800100L,
+        0x0880042000524004L, 0x02C080410206002CL, 0x0801200241050010L, 0x8400080010008080L,
+        0x0008000500090010L, 0x0082009084020008L, 0x4012000108020004L, 0x9000104D08860004L,
+        0x2004204114800100L, 0x0148802112400300L, 0x0202842000100880L, 0x001B080080900080L,
+        0x001A002008100600L, 0x0004008004020080L, 0x5181000600040300L, 0x0000044401128A00L,
+        0x8044110480002441L, 0x2008110084402202L, 0x90806005090010C1L, 0x000420310A004A42L,
+        0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+    };
+    private static final int[] ROOK_SHIFTS = new int[Chessboard.SQUARES];
+    private static final int[] ROOK_OFFSETS = new int[Chessboard.SQUARES];
+    private static final long[] ROOK_TABLE;
+
+    private static final long[] BISHOP_MASKS = new long[Chessboard.SQUARES];
+    private static final long[] BISHOP_MAGICS = {
+        0x0045010808008680L, 0x2002080204004898L, 0x0210009A10400006L, 0x0824050200810200L,
+        0x0006061105004090L, 0x00010108C0000000L, 0x0814040282104004L, 0x0012012201106800L,
+        0x10823014100C1040L, 0x0080C2088802808CL, 0x0281108410404000L, 0x0101212041826200L,
+        0x0020141028221058L, 0x2201020202200202L, 0x000082A801482000L, 0x0000008401411044L,
+        0x0007103014300404L, 0x0002091110010100L, 0x42140012040C0808L, 0x0800808802004020L,
+        0x90C4004210140000L, 0x0800200900A01000L, 0x00D0400201108810L, 0x80820183814412A0L,
+        0x00A01008202202B4L, 0x01C2021A09500402L, 0x0084440208042400L, 0x800400400C090100L,
+        0xBA10040010802100L, 0xD182009006005000L, 0x5011021001009004L, 0x0020420200510400L,
+        0x0292104000468800L, 0x00043009091C0500L, 0x0280441000020025L, 0x0042820080080080L,
+        0x0440101010010040L, 0x1000900100808080L, 0x0108108120089800L, 0x0044010200012682L,
+        0xC002500420900400L, 0x0040482210710800L, 0x0002060024000200L, 0x0281020A44000800L,
+        0xA0021200A4000200L, 0x0001301000840840L, 0x2868500108444220L, 0x0004111041000200L,
+        0x8044020842080200L, 0x0000220104210200L, 0x0000021201044000L, 0x0000280884040028L,
+        0x4012114010858003L, 0x0000081004082B88L, 0x3892700508208002L, 0x00220A041B060400L,
+        0x0812020284014881L, 0x010434A282103100L, 0x0490400824020800L, 0x4A20002C00208800L,
+        0x000000A011020200L, 0x4002940A02482202L, 0x5100100202140406L, 0x02102000840540C1L
+    };
+    private static final int[] BISHOP_SHIFTS = new int[Chessboard.SQUARES];
+    private static final int[] BISHOP_OFFSETS = new int[Chessboard.SQUARES];
+    private static final long[] BISHOP_TABLE;
+
+    // The state of the xorshift generator used to search for magics
+    private static long seed = 0x2545F4914F6CDD1DL;
+
+    static {
+        long start = System.nanoTime();
+
+        ROOK_TABLE = Magic.build(Rook.DIRECTIONS, Magic.ROOK_MASKS, Magic.ROOK_MAGICS, Magic.ROOK_SHIFTS,
+            Magic.ROOK_OFFSETS);
+        BISHOP_TABLE = Magic.build(Bishop.DIRECTIONS, Magic.BISHOP_MASKS, Magic.BISHOP_MAGICS, Magic.BISHOP_SHIFTS,
+            Magic.BISHOP_OFFSETS);
+        INIT_NANOS = System.nanoTime() - start;
+    }
+
+    private Magic() {
+        super();
+    }
+
+    static long rookAttacks(int square, long occupied) {
+        long index = ((occupied & Magic.ROOK_MASKS[square]) * Magic.ROOK_MAGICS[square]) >>> Magic.ROOK_SHIFTS[square];
+
+        return Magic.ROOK_TABLE[Magic.ROOK_OFFSETS[square] + (int) index];
+    }
+
+    static long bishopAttacks(int square, long occupied) {
+        long index = ((occupied & Magic.BISHOP_MASKS[square]) * Magic.BISHOP_MAGICS[square])
+            >>> Magic.BISHOP_SHIFTS[square];
+
+        return Magic.BISHOP_TABLE[Magic.BISHOP_OFFSETS[square] + (int) index];
+    }
+
+    // Fills the table of every square into one table shared by all of them. A magic that doesn't fit the square is
+    // searched for again, so a bad constant costs time rather than correctness
+    private static long[] build(int[][] directions, long[] masks, long[] magics, int[] shifts, int[] offsets) {
+        long[][] tables = new long[Chessboard.SQUARES][];
+        int size = 0;
+
+        for (int square = 0; square < Chessboard.SQUARES; square++) {
+            masks[square] = Magic.relevantSquares(square, directions);
+            shifts[square] = Chessboard.SQUARES - Bitboard.count(masks[square]);
+            offsets[square] = size;
+            tables[square] = Magic.fill(square, directions, masks[square], shifts[square], magics[square]);
+
+            if (tables[square] == null) {
+                tables[square] = Magic.findMagic(square, directions, masks[square], shifts[square], magics);
+            }
+
+            size += tables[square].length;
+        }
+
+        long[] table = new long[size];
+
+        for (int square = 0; square < Chessboard.SQUARES; square++) {
+            System.arraycopy(tables[square], 0, table, offsets[square], tables[square].length);
+        }
+
+        return table;
+    }
+
+    // Returns the squares whose occupancy can change the attacks from the square. The last square of each line
+    // never blocks anything behind it, so it's left out
+    private static long relevantSquares(int square, int[][] directions) {
+        long mask = Bitboard.EMPTY;
+
+        for (int[] direction : directions) {
+            int row = Bitboard.row(square) + direction[0];
+            int col = Bitboard.col(square) + direction[1];
+
+            while (row + direction[0] >= 1 && row + direction[0] <= Chessboard.HEIGHT
+                && col + direction[1] >= 1 && col + direction[1] <= Chessboard.WIDTH) {
+                mask |= Bitboard.bit(Bitboard.square(row, col));
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+
+        return mask;
+    }
+
+    // Returns the table of the square for the magic, or null if two blocker arrangements with different attacks
+    // share an entry
+    private static long[] fill(int square, int[][] directions, long mask, int shift, long magic) {
+        int count = 1 << Bitboard.count(mask);
+        long[] table = new long[count];
+        boolean[] used = new boolean[count];
+        long subset = Bitboard.EMPTY;
+
+        for (int i = 0; i < count; i++) {
+            int index = (int) ((subset * magic) >>> shift);
+            long attacks = ChessPiece.slideAttacks(square, directions, subset);
+
+            if (!used[index]) {
+                used[index] = true;
+                table[index] = attacks;
+
+            } else if (table[index] != attacks) {
+                return null;
+            }
+
+            subset = (subset - mask) & mask;
+        }
+
+        return table;
+    }
+
+    // Tries random sparse numbers until one maps every blocker arrangement to an entry without clashing with a
+    // different attack set, and returns the filled table for the square
+    private static long[] findMagic(int square, int[][] directions, long mask, int shift, long[] magics) {
+        int count = 1 << Bitboard.count(mask);
+        long[] blockers = new long[count];
+        long[] attacks = new long[count];
+        long[] table = new long[count];
+        int[] used = new int[count];
+        long subset = Bitboard.EMPTY;
+
+        // Walk every subset of the mask
+        for (int i = 0; i < count; i++) {
+            blockers[i] = subset;
+            attacks[i] = ChessPiece.slideAttacks(square, directions, subset);
+            subset = (subset - mask) & mask;
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            long magic = Magic.random() & Magic.random() & Magic.random();
+            boolean clash = false;
+
+            if (Bitboard.count((mask * magic) & 0xFF00000000000000L) < 6) {
+                continue;
+            }
+
+            for (int i = 0; i < count && !clash; i++) {
+                int index = (int) ((blockers[i] * magic) >>> shift);
+
+                if (used[index] != attempt) {
+                    used[index] = attempt;
+                    table[index] = attacks[i];
+
+                } else if (table[index] != attacks[i]) {
+                    clash = true;
+                }
+            }
+
+            if (!clash) {
+                magics[square] = magic;
+                return table;
+            }
+        }
+    }
+
+    private static long random() {
+        Magic.seed ^= Magic.seed >>> 12;
+        Magic.seed ^= Magic.seed << 25;
+        Magic.seed ^= Magic.seed >>> 27;
+
+        return Magic.seed * 0x2545F4914F6CDD1DL;
+    }
+}
\ No newline at end of file
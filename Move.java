@@ -0,0 +1,69 @@
+// Moves are packed into an int: bits 0-5 hold the start square, bits 6-11 the destination and bits 12-15 the flags
+class Move {
+    static final int NONE = 0;
+
+    // Flags
+    static final int QUIET = 0;
+    static final int DOUBLE_PUSH = 1;
+    static final int KING_CASTLE = 2;
+    static final int QUEEN_CASTLE = 3;
+    static final int CAPTURE = 4;
+    static final int EN_PASSANT = 5;
+    // The two lowest bits of a promotion select the new piece: knight, bishop, rook or queen
+    static final int PROMOTION = 8;
+    static final int PROMOTION_CAPTURE = 12;
+
+    private Move() {
+        super();
+    }
+
+    static int encode(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    static int from(int move) {
+        return move & 0x3F;
+    }
+
+    static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    static int flags(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    static boolean isCapture(int move) {
+        return (Move.flags(move) & Move.CAPTURE) != 0;
+    }
+
+    static boolean isPromotion(int move) {
+        return (Move.flags(move) & Move.PROMOTION) != 0;
+    }
+
+    static boolean isCastle(int move) {
+        return Move.flags(move) == Move.KING_CASTLE || Move.flags(move) == Move.QUEEN_CASTLE;
+    }
+
+    // Only call this on promotions
+    static int promotion(int move) {
+        return ChessPiece.KNIGHT + (Move.flags(move) & 3);
+    }
+
+    // Returns the promotion flags that turn a pawn into the given piece type
+    static int promotionFlags(int type, boolean capture) {
+        return (capture ? Move.PROMOTION_CAPTURE : Move.PROMOTION) | (type - ChessPiece.KNIGHT);
+    }
+
+    // Returns the name of the square in algebraic notation, like "e4"
+    static String squareName(int square) {
+        return "" + (char) ('a' + Bitboard.col(square) - 1) + Bitboard.row(square);
+    }
+
+    // Returns the move in the coordinate notation other engines use, like "e2e4" or "e7e8q"
+    static String name(int move) {
+        String name = Move.squareName(Move.from(move)) + Move.squareName(Move.to(move));
+
+        return Move.isPromotion(move) ? name + "nbrq".charAt(Move.promotion(move) - ChessPiece.KNIGHT) : name;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,61 @@
+// A reusable buffer of packed moves (see "Move"), so that generating moves doesn't allocate
+class MoveList {
+    // No position has more than 218 legal moves
+    static final int CAPACITY = 256;
+
+    // Kinds of moves to generate
+    static final int ALL = 0;
+    // Captures and promotions, which change the material on the board
+    static final int CAPTURES = 1;
+    // Every other move
+    static final int QUIETS = 2;
+
+    private final int[] moves;
+    private int size;
+
+    MoveList() {
+        super();
+        this.moves = new int[MoveList.CAPACITY];
+        this.size = 0;
+    }
+
+    // Returns "true" if a move that captures or promotes should be generated for the kind
+    static boolean wanted(int kind, boolean capture) {
+        return kind == MoveList.ALL || (kind == MoveList.CAPTURES) == capture;
+    }
+
+    void add(int move) {
+        this.moves[this.size++] = move;
+    }
+
+    int get(int index) {
+        return this.moves[index];
+    }
+
+    void set(int index, int move) {
+        this.moves[index] = move;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    void clear() {
+        this.size = 0;
+    }
+
+    // Drops every move from the index onwards
+    void truncate(int size) {
+        this.size = size;
+    }
+
+    boolean contains(int move) {
+        for (int i = 0; i < this.size; i++) {
+            if (this.moves[i] == move) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,284 @@
+// Hands out the legal moves of a position one at a time, best first as far as it can tell without searching: the
+// hash move, then captures and promotions with the most valuable victim taken by the least valuable attacker
+// first, then the killer moves of the ply, then the captures that lose material by static exchange evaluation, and
+// last the quiet moves by their history score. Each kind of move is only generated once the ones before it have all
+// been tried, so a cutoff on the hash move or a capture never generates the quiet moves at all.
+//
+// For the quiescence search it only hands out the captures and promotions, and if asked the quiet moves that give
+// check. The captures that lose material are left out there altogether
+class MovePicker {
+    // The stages, in the order the moves come out
+    private static final int HASH = 0;
+    private static final int GENERATE_CAPTURES = 1;
+    private static final int CAPTURES = 2;
+    private static final int FIRST_KILLER = 3;
+    private static final int SECOND_KILLER = 4;
+    private static final int BAD_CAPTURES = 5;
+    private static final int GENERATE_QUIETS = 6;
+    private static final int QUIETS = 7;
+    private static final int DONE = 8;
+
+    // The killer moves kept for each ply
+    static final int KILLERS = 2;
+
+    // History scores are halved once any of them reaches this, so that old cutoffs count for less than new ones
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    private final MoveList moves;
+    private final int[] scores;
+
+    // The captures put off until after the killers
+    private final MoveList badCaptures;
+
+    private Chessboard chessboard;
+    private int[][] history;
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+    private boolean quiescence;
+    private boolean checks;
+    private int stage;
+    private int index;
+
+    MovePicker() {
+        super();
+        this.moves = new MoveList();
+        this.scores = new int[MoveList.CAPACITY];
+        this.badCaptures = new MoveList();
+    }
+
+    // Starts handing out the moves of the board's position. "history" holds a score for each piece code and
+    // destination square, and is only read
+    void reset(Chessboard chessboard, int hashMove, int[] killers, int[][] history) {
+        this.chessboard = chessboard;
+        this.history = history;
+        this.hashMove = hashMove;
+        this.firstKiller = killers[0];
+        this.secondKiller = killers[1];
+        this.quiescence = false;
+        this.checks = false;
+        this.stage = MovePicker.HASH;
+        this.index = 0;
+        this.badCaptures.clear();
+    }
+
+    // Starts handing out the moves the quiescence search tries in the board's position, with the quiet checks too
+    // if "checks" is set
+    void resetQuiescence(Chessboard chessboard, int[][] history, boolean checks) {
+        this.chessboard = chessboard;
+        this.history = history;
+        this.hashMove = Move.NONE;
+        this.firstKiller = Move.NONE;
+        this.secondKiller = Move.NONE;
+        this.quiescence = true;
+        this.checks = checks;
+        this.stage = MovePicker.GENERATE_CAPTURES;
+        this.index = 0;
+        this.badCaptures.clear();
+    }
+
+    // Returns the next legal move, or Move.NONE once every move has been handed out
+    int next() {
+        while (true) {
+            switch (this.stage) {
+                case MovePicker.HASH:
+                    this.stage = MovePicker.GENERATE_CAPTURES;
+
+                    if (this.chessboard.isLegal(this.hashMove)) {
+                        return this.hashMove;
+                    }
+
+                    break;
+
+                case MovePicker.GENERATE_CAPTURES:
+                    this.chessboard.generateLegalMoves(this.moves, MoveList.CAPTURES);
+                    this.scoreCaptures();
+                    this.index = 0;
+                    this.stage = MovePicker.CAPTURES;
+                    break;
+
+                case MovePicker.CAPTURES:
+                    while (this.index < this.moves.size()) {
+                        int move = this.pickBest();
+
+                        if (move == this.hashMove) {
+                            continue;
+                        }
+
+                        if (this.loses(move)) {
+                            this.badCaptures.add(move);
+
+                        } else {
+                            return move;
+                        }
+                    }
+
+                    if (!this.quiescence) {
+                        this.stage = MovePicker.FIRST_KILLER;
+
+                    } else {
+                        this.stage = this.checks ? MovePicker.GENERATE_QUIETS : MovePicker.DONE;
+                    }
+
+                    break;
+
+                case MovePicker.FIRST_KILLER:
+                    this.stage = MovePicker.SECOND_KILLER;
+
+                    if (this.isKiller(this.firstKiller)) {
+                        return this.firstKiller;
+                    }
+
+                    break;
+
+                case MovePicker.SECOND_KILLER:
+                    this.index = 0;
+                    this.stage = MovePicker.BAD_CAPTURES;
+
+                    if (this.isKiller(this.secondKiller)) {
+                        return this.secondKiller;
+                    }
+
+                    break;
+
+                case MovePicker.BAD_CAPTURES:
+                    if (this.index < this.badCaptures.size()) {
+                        return this.badCaptures.get(this.index++);
+                    }
+
+                    this.stage = MovePicker.GENERATE_QUIETS;
+                    break;
+
+                case MovePicker.GENERATE_QUIETS:
+                    this.chessboard.generateLegalMoves(this.moves, MoveList.QUIETS);
+                    this.scoreQuiets();
+                    this.index = 0;
+                    this.stage = MovePicker.QUIETS;
+                    break;
+
+                case MovePicker.QUIETS:
+                    while (this.index < this.moves.size()) {
+                        int move = this.pickBest();
+
+                        if (this.quiescence ? this.chessboard.givesCheck(move)
+                            : move != this.hashMove && move != this.firstKiller && move != this.secondKiller) {
+                            return move;
+                        }
+                    }
+
+                    this.stage = MovePicker.DONE;
+                    break;
+
+                default:
+                    return Move.NONE;
+            }
+        }
+    }
+
+    // Returns "true" if the last move handed out was one of the quiet moves after the killers, which the history
+    // scores put in order. These are the moves least likely to be best
+    boolean isLate() {
+        return this.stage == MovePicker.QUIETS && !this.quiescence;
+    }
+
+    // Remembers a quiet move that caused a cutoff at the ply, keeping the one it replaces as the second killer
+    static void addKiller(int[] killers, int move) {
+        if (killers[0] != move) {
+            killers[1] = killers[0];
+            killers[0] = move;
+        }
+    }
+
+    // Rewards the quiet move that caused a cutoff, more so the deeper the search below it was
+    static void addHistory(int[][] history, int piece, int move, int depth) {
+        int to = Move.to(move);
+
+        history[piece][to] += depth * depth;
+
+        if (history[piece][to] >= MovePicker.HISTORY_LIMIT) {
+            MovePicker.ageHistory(history);
+        }
+    }
+
+    // Halves every history score
+    static void ageHistory(int[][] history) {
+        for (int[] scores : history) {
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] /= 2;
+            }
+        }
+    }
+
+    // A killer is a quiet move from another position at the same ply, so it may not be legal here, and it may be
+    // the hash move, which has already been tried
+    private boolean isKiller(int move) {
+        return move != this.hashMove && !Move.isCapture(move) && !Move.isPromotion(move)
+            && this.chessboard.isLegal(move);
+    }
+
+    // Returns "true" if the capture loses material once the other side takes back. A piece taking one worth at
+    // least as much can't lose, so the exchange is only worked out when the attacker is worth more. Promotions are
+    // never put off
+    private boolean loses(int move) {
+        int attacker;
+        int victim;
+
+        if (!Move.isCapture(move) || Move.isPromotion(move) || Move.flags(move) == Move.EN_PASSANT) {
+            return false;
+        }
+
+        attacker = this.chessboard.pieceAt(Move.from(move)) % ChessPiece.TYPES;
+        victim = this.chessboard.pieceAt(Move.to(move)) % ChessPiece.TYPES;
+
+        return Evaluation.EXCHANGE_VALUES[attacker] > Evaluation.EXCHANGE_VALUES[victim]
+            && this.chessboard.see(move) < 0;
+    }
+
+    // Most valuable victim first, then least valuable attacker, with promotions counted as taking the new piece
+    private void scoreCaptures() {
+        for (int i = 0; i < this.moves.size(); i++) {
+            int move = this.moves.get(i);
+            int attacker = this.chessboard.pieceAt(Move.from(move)) % ChessPiece.TYPES;
+            int victim = Move.flags(move) == Move.EN_PASSANT ? ChessPiece.PAWN
+                : this.chessboard.pieceAt(Move.to(move)) % ChessPiece.TYPES;
+            int score = Move.isCapture(move) ? ChessPiece.TYPES * (victim + 1) - attacker : 0;
+
+            if (Move.isPromotion(move)) {
+                score += ChessPiece.TYPES * Move.promotion(move);
+            }
+
+            this.scores[i] = score;
+        }
+    }
+
+    private void scoreQuiets() {
+        for (int i = 0; i < this.moves.size(); i++) {
+            int move = this.moves.get(i);
+
+            this.scores[i] = this.history[this.chessboard.pieceAt(Move.from(move))][Move.to(move)];
+        }
+    }
+
+    // Swaps the best of the moves not handed out yet to the front and hands it out. A cutoff usually comes early,
+    // so picking one at a time does less work than sorting them all
+    private int pickBest() {
+        int best = this.index;
+        int move;
+        int score;
+
+        for (int i = this.index + 1; i < this.moves.size(); i++) {
+            if (this.scores[i] > this.scores[best]) {
+                best = i;
+            }
+        }
+
+        move = this.moves.get(best);
+        score = this.scores[best];
+        this.moves.set(best, this.moves.get(this.index));
+        this.scores[best] = this.scores[this.index];
+        this.moves.set(this.index, move);
+        this.scores[this.index++] = score;
+
+        return move;
+    }
+}
\ No newline at end of file
@@ -1,12 +1,24 @@
-import java.util.HashSet;
-
 class Pawn extends ChessPiece {
+    // The diagonal steps a Pawn of each side attacks
+    static final int[][][] STEPS = {{{1, -1}, {1, 1}}, {{-1, -1}, {-1, 1}}};
+
+    // The squares attacked by a Pawn of each side on each square
+    private static final long[][] ATTACKS = new long[2][Chessboard.SQUARES];
+
+    static {
+        for (int side = Chessboard.WHITE; side <= Chessboard.BLACK; side++) {
+            for (int square = 0; square < Chessboard.SQUARES; square++) {
+                Pawn.ATTACKS[side][square] = ChessPiece.stepAttacks(square, Pawn.STEPS[side]);
+            }
+        }
+    }
+
     private boolean hasNotMoved;
     private boolean canBeEnPassant;
 
     Pawn(ChessPlayer owner, Position start) {
         super(owner, start);
-        this.hasNotMoved = true;
+        this.hasNotMoved = start.getRow() == (owner.getSide() == Chessboard.WHITE ? 2 : Chessboard.HEIGHT - 1);
         this.canBeEnPassant = false;
     }
 
@@ -19,6 +31,11 @@ class Pawn extends ChessPiece {
         this.canBeEnPassant = !this.canBeEnPassant;
     }
 
+    @Override
+    int getType() {
+        return ChessPiece.PAWN;
+    }
+
     @Override
     boolean move(Chessboard chessboard, Position dest) {
         int destRow = dest.getRow();
@@ -51,25 +68,24 @@ class Pawn extends ChessPiece {
             outOfBounds = destRow < 1 || destRow > 8 || destCol < 1 || destCol > 8;
 
             if (!outOfBounds) {
-                if (this.getOwner() == Chess.PLAYER1) {
-                    attackMove = (destRow == thisRow + 1 && destCol == thisCol - 1)
-                        || (destRow == thisRow + 1 && destCol == thisCol + 1);
+                attackMove = Bitboard.contains(Pawn.attacks(this.getPos().getSquare(), Chessboard.side(this.getOwner())),
+                    dest.getSquare());
+
+                if (this.getOwner().getSide() == Chessboard.WHITE) {
                     forwardMove = destRow == thisRow + 1
                         && destCol == thisCol;
                     forward2Move = destRow == thisRow + 2
                         && destCol == thisCol
                         && this.hasNotMoved;
-                    belowDest = new Position(destRow - 1, destCol);
+                    belowDest = Position.of(destRow - 1, destCol);
 
                 } else {
-                    attackMove = (destRow == thisRow - 1 && destCol == thisCol - 1)
-                        || (destRow == thisRow - 1 && destCol == thisCol + 1);
                     forwardMove = destRow == thisRow - 1
                         && destCol == thisCol;
                     forward2Move = destRow == thisRow - 2
                         && destCol == thisCol
                         && this.hasNotMoved;
-                    belowDest = new Position(destRow + 1, destCol);
+                    belowDest = Position.of(destRow + 1, destCol);
                 }
 
                 validMove = attackMove || forwardMove || forward2Move;
@@ -93,12 +109,7 @@ class Pawn extends ChessPiece {
                                 this.hasNotMoved = false;
             
                                 if (this.targetsKing(chessboard)) {
-                                    if (this.getOwner() == Chess.PLAYER1) {
-                                        Chess.PLAYER2.checked();
-            
-                                    } else {
-                                        Chess.PLAYER1.checked();
-                                    }
+                                    chessboard.getOpponent(this.getOwner()).checked();
                                 }
     
                             } else {
@@ -120,12 +131,7 @@ class Pawn extends ChessPiece {
                             this.hasNotMoved = false;
         
                             if (this.targetsKing(chessboard)) {
-                                if (this.getOwner() == Chess.PLAYER1) {
-                                    Chess.PLAYER2.checked();
-        
-                                } else {
-                                    Chess.PLAYER1.checked();
-                                }
+                                chessboard.getOpponent(this.getOwner()).checked();
                             }
                         }
     
@@ -145,12 +151,7 @@ class Pawn extends ChessPiece {
                         this.hasNotMoved = false;
     
                         if (this.targetsKing(chessboard)) {
-                            if (this.getOwner() == Chess.PLAYER1) {
-                                Chess.PLAYER2.checked();
-    
-                            } else {
-                                Chess.PLAYER1.checked();
-                            }
+                            chessboard.getOpponent(this.getOwner()).checked();
                         }
     
                     } else if (forward2Move) {
@@ -169,12 +170,7 @@ class Pawn extends ChessPiece {
                         this.hasNotMoved = false;
     
                         if (this.targetsKing(chessboard)) {
-                            if (this.getOwner() == Chess.PLAYER1) {
-                                Chess.PLAYER2.checked();
-    
-                            } else {
-                                Chess.PLAYER1.checked();
-                            }
+                            chessboard.getOpponent(this.getOwner()).checked();
                         }
     
                         chessboard.setEnPassantPawn(this);
@@ -196,106 +192,71 @@ class Pawn extends ChessPiece {
         return true;
     }
 
-    @Override
-    boolean targetsKing(Chessboard chessboard) {
-        int thisRow = this.getPos().getRow();
-        int thisCol = this.getPos().getCol();
-
-        if (this.getOwner() == Chess.PLAYER1) {
-            if (chessboard.getPiece("ki").getPos().equals(new Position(thisRow + 1, thisCol - 1))
-                || chessboard.getPiece("ki").getPos().equals(new Position(thisRow + 1, thisCol + 1))) {
-                return true;
-            }
+    // Returns the squares attacked by a Pawn of the side on the square
+    static long attacks(int square, int side) {
+        return Pawn.ATTACKS[side][square];
+    }
 
-        } else {
-            if (chessboard.getPiece("Ki").getPos().equals(new Position(thisRow - 1, thisCol - 1))
-                || chessboard.getPiece("Ki").getPos().equals(new Position(thisRow - 1, thisCol + 1))) {
-                return true;
-            }
+    // Adds the moves of the Pawn on the square to the list. Promotions count as captures, since they change the
+    // material on the board
+    static void generateMoves(Chessboard chessboard, int from, MoveList moves, int kind) {
+        int side = chessboard.pieceAt(from) / ChessPiece.TYPES;
+        int forward = side == Chessboard.WHITE ? Chessboard.WIDTH : -Chessboard.WIDTH;
+        int startRow = side == Chessboard.WHITE ? 2 : Chessboard.HEIGHT - 1;
+        int one = from + forward;
+        long captures;
+        boolean promotion;
+
+        if (one < 0 || one >= Chessboard.SQUARES) {
+            return;
         }
 
-        return false;
-    }
+        promotion = Bitboard.row(one) == 1 || Bitboard.row(one) == Chessboard.HEIGHT;
 
-    @Override
-    HashSet<Position> possibleMoves(Chessboard chessboard) {
-        HashSet<Position> moves = new HashSet<Position>();
-        int thisRow = this.getPos().getRow();
-        int thisCol = this.getPos().getCol();
-        Position oneUp;
-        Position twoUp;
-        Position left;
-        Position right;
-        Position upLeft;
-        Position upRight;
-        boolean canEnPassantLeft;
-        boolean canEnPassantRight;
-
-        if (this.getOwner() == Chess.PLAYER1) {
-            oneUp = new Position(thisRow + 1, thisCol);
-            twoUp = new Position(thisRow + 2, thisCol);
-            left = new Position(thisRow, thisCol - 1);
-            right = new Position(thisRow, thisCol + 1);
-            upLeft = new Position(thisRow + 1, thisCol - 1);
-            upRight = new Position(thisRow + 1, thisCol + 1);
-            canEnPassantLeft = chessboard.isEnemy(this.getOwner(), left)
-                && chessboard.getPiece(left).getClass() == this.getClass()
-                && ((Pawn) chessboard.getPiece(left)).canBeEnPassant();
-            canEnPassantRight = chessboard.isEnemy(this.getOwner(), right)
-                && chessboard.getPiece(right).getClass() == this.getClass()
-                && ((Pawn) chessboard.getPiece(right)).canBeEnPassant();
-
-            if (chessboard.vacantSpot(oneUp) && chessboard.onBoard(oneUp)) {
-                if (chessboard.vacantSpot(twoUp) && chessboard.onBoard(twoUp) && this.hasNotMoved) {
-                    moves.add(oneUp);
-                    moves.add(twoUp);
+        if (chessboard.pieceAt(one) == Chessboard.EMPTY) {
+            if (promotion) {
+                if (MoveList.wanted(kind, true)) {
+                    Pawn.addPromotions(from, one, false, moves);
+                }
 
-                } else {
-                    moves.add(oneUp);
+            } else if (MoveList.wanted(kind, false)) {
+                moves.add(Move.encode(from, one, Move.QUIET));
+
+                if (Bitboard.row(from) == startRow && chessboard.pieceAt(one + forward) == Chessboard.EMPTY) {
+                    moves.add(Move.encode(from, one + forward, Move.DOUBLE_PUSH));
                 }
             }
+        }
 
-            if (chessboard.isEnemy(Chess.PLAYER1, upLeft) || canEnPassantLeft) {
-                moves.add(upLeft);
-            }
+        if (!MoveList.wanted(kind, true)) {
+            return;
+        }
 
-            if (chessboard.isEnemy(Chess.PLAYER1, upRight) || canEnPassantRight) {
-                moves.add(upRight);
-            }
+        captures = Pawn.ATTACKS[side][from] & chessboard.getPieces(1 - side);
 
-        } else {
-            oneUp = new Position(thisRow - 1, thisCol);
-            twoUp = new Position(thisRow - 2, thisCol);
-            left = new Position(thisRow, thisCol + 1);
-            right = new Position(thisRow, thisCol - 1);
-            upLeft = new Position(thisRow - 1, thisCol + 1);
-            upRight = new Position(thisRow - 1, thisCol - 1);
-            canEnPassantLeft = chessboard.isEnemy(this.getOwner(), left)
-                && chessboard.getPiece(left).getClass() == this.getClass()
-                && ((Pawn) chessboard.getPiece(left)).canBeEnPassant();
-            canEnPassantRight = chessboard.isEnemy(this.getOwner(), right)
-                && chessboard.getPiece(right).getClass() == this.getClass()
-                && ((Pawn) chessboard.getPiece(right)).canBeEnPassant();
-
-            if (chessboard.vacantSpot(oneUp) && chessboard.onBoard(oneUp)) {
-                if (chessboard.vacantSpot(twoUp) && chessboard.onBoard(twoUp) && this.hasNotMoved) {
-                    moves.add(oneUp);
-                    moves.add(twoUp);
+        while (captures != 0) {
+            int to = Bitboard.first(captures);
 
-                } else {
-                    moves.add(oneUp);
-                }
-            }
+            if (promotion) {
+                Pawn.addPromotions(from, to, true, moves);
 
-            if (chessboard.isEnemy(Chess.PLAYER2, upLeft) || canEnPassantLeft) {
-                moves.add(upLeft);
+            } else {
+                moves.add(Move.encode(from, to, Move.CAPTURE));
             }
 
-            if (chessboard.isEnemy(Chess.PLAYER2, upRight) || canEnPassantRight) {
-                moves.add(upRight);
-            }
+            captures &= captures - 1;
+        }
+
+        // The "en passant" square is always vacant, so it can't also be a capture above
+        if (chessboard.getEnPassantSquare() != Chessboard.NO_SQUARE
+            && Bitboard.contains(Pawn.ATTACKS[side][from], chessboard.getEnPassantSquare())) {
+            moves.add(Move.encode(from, chessboard.getEnPassantSquare(), Move.EN_PASSANT));
         }
+    }
 
-        return moves;
+    private static void addPromotions(int from, int to, boolean capture, MoveList moves) {
+        for (int type = ChessPiece.QUEEN; type >= ChessPiece.KNIGHT; type--) {
+            moves.add(Move.encode(from, to, Move.promotionFlags(type, capture)));
+        }
     }
 }
\ No newline at end of file
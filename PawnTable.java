@@ -0,0 +1,62 @@
+// A small direct-mapped cache of pawn structure scores keyed by the board's pawn key. The Pawns change far less
+// often than the rest of the position, so nearly every evaluation in a search finds its Pawns here instead of
+// working out their structure again. Each search thread has its own table, so it isn't shared
+class PawnTable {
+    private final long[] keys;
+    private final int[] scores;
+    private final int mask;
+
+    private long probes;
+    private long hits;
+
+    // The table takes at most the given number of kilobytes, rounded down to a power of two number of entries
+    PawnTable(int kilobytes) {
+        super();
+        int entries = Integer.highestOneBit(Math.max(1, (kilobytes << 10) / (Long.BYTES + Integer.BYTES)));
+
+        this.keys = new long[entries];
+        this.scores = new int[entries];
+        this.mask = entries - 1;
+        this.probes = 0;
+        this.hits = 0;
+    }
+
+    // Returns the packed pawn structure score of the board's Pawns (see "Evaluation.pawnStructure()"), working it
+    // out and storing it if it isn't in the table. An empty entry has key 0, which is also the key of no Pawns at
+    // all, whose score is 0 too
+    int probe(Chessboard chessboard) {
+        long key = chessboard.getPawnKey();
+        int index = (int) key & this.mask;
+
+        this.probes++;
+
+        if (this.keys[index] == key) {
+            this.hits++;
+            return this.scores[index];
+        }
+
+        this.keys[index] = key;
+        this.scores[index] = Evaluation.pawnStructure(chessboard.getPieces(Chessboard.WHITE, ChessPiece.PAWN),
+            chessboard.getPieces(Chessboard.BLACK, ChessPiece.PAWN));
+
+        return this.scores[index];
+    }
+
+    long getProbes() {
+        return this.probes;
+    }
+
+    long getHits() {
+        return this.hits;
+    }
+
+    double hitRate() {
+        return this.probes == 0 ? 0.0 : (double) this.hits / this.probes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d KB, %d probes, %.1f%% hits", (this.keys.length * (Long.BYTES + Integer.BYTES)) >> 10,
+            this.probes, 100 * this.hitRate());
+    }
+}
\ No newline at end of file
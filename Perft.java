@@ -0,0 +1,288 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+// Counts the leaf nodes of the legal move tree to a fixed depth. The counts of the reference positions below are
+// known exactly, so any bug in move generation, castling, "en passant" or promotion shows up as a wrong number
+class Perft {
+    // Well-known test positions and their node counts from depth 1 onwards
+    private static final String[] FENS = {
+        Chessboard.START_FEN,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"
+    };
+    private static final long[][] COUNTS = {
+        {20L, 400L, 8902L, 197281L, 4865609L, 119060324L},
+        {48L, 2039L, 97862L, 4085603L, 193690690L},
+        {14L, 191L, 2812L, 43238L, 674624L, 11030083L, 178633661L},
+        {6L, 264L, 9467L, 422333L, 15833292L},
+        {44L, 1486L, 62379L, 2103487L, 89941194L},
+        {46L, 2079L, 89890L, 3894594L, 164075551L}
+    };
+
+    // Without a depth, the suite runs each position as deep as it can without going over this many nodes
+    private static final long SUITE_NODES = 20_000_000L;
+
+    // How many plies from the root are split into tasks by a parallel perft
+    private static final int SPLIT_PLIES = 2;
+
+    private final Chessboard chessboard;
+
+    // Counts already worked out for a position and depth, or null to count every subtree
+    private final PerftTable table;
+
+    // One move list per ply, created the first time the ply is reached, so that counting doesn't allocate
+    private final MoveList[] moves;
+
+    Perft(Chessboard chessboard) {
+        this(chessboard, null);
+    }
+
+    Perft(Chessboard chessboard, PerftTable table) {
+        super();
+        this.chessboard = chessboard;
+        this.table = table;
+        this.moves = new MoveList[Chessboard.MAX_PLY];
+    }
+
+    // Runs one of the modes printed by "printUsage()". The number of threads of a parallel perft defaults to the
+    // number of cores and can be set with "-Dperft.threads=N". "-Dperft.hash=MB" shares a table of counts between
+    // them
+    static void run(String args[]) {
+        boolean divide = args[0].equals("divide");
+        boolean parallel = args.length > 1 && args[1].equals("parallel");
+        boolean scaling = args.length > 1 && args[1].equals("scaling");
+        int first = parallel || scaling ? 2 : 1;
+        int threads = Integer.getInteger("perft.threads", Runtime.getRuntime().availableProcessors());
+        int megabytes = Integer.getInteger("perft.hash", 0);
+        Chessboard chessboard = new Chessboard();
+        Perft perft = new Perft(chessboard);
+        PerftTable table = megabytes > 0 ? new PerftTable(megabytes) : null;
+        String fen;
+        int depth;
+        long start;
+        long nodes;
+
+        if (args.length <= first) {
+            Perft.printUsage();
+            return;
+        }
+
+        try {
+            if (args[1].equals("suite")) {
+                System.exit(Perft.suite(args.length > 2 ? Integer.parseInt(args[2]) : 0) ? 0 : 1);
+            }
+
+            depth = Integer.parseInt(args[first]);
+            fen = args.length > first + 1
+                ? String.join(" ", Arrays.copyOfRange(args, first + 1, args.length))
+                : Chessboard.START_FEN;
+            chessboard.loadFen(fen);
+
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            Perft.printUsage();
+            return;
+        }
+
+        if (scaling) {
+            Perft.scaling(chessboard, depth, threads, megabytes);
+            return;
+        }
+
+        start = System.nanoTime();
+
+        if (parallel) {
+            nodes = Perft.parallel(chessboard, depth, threads, table);
+            System.out.println("Threads: " + threads);
+
+            if (table != null) {
+                System.out.println("Table: " + table);
+            }
+
+        } else {
+            nodes = divide ? perft.divide(depth) : perft.perft(depth);
+        }
+
+        Perft.report(nodes, System.nanoTime() - start);
+    }
+
+    // Counts the nodes on a fork-join pool of the given number of threads. The board isn't played on
+    static long parallel(Chessboard chessboard, int depth, int threads, PerftTable table) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+
+        try {
+            return pool.invoke(new PerftTask(chessboard.copy(), depth, Perft.SPLIT_PLIES, table));
+
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Runs a parallel perft with 1 to the given number of threads and prints the speedup over one thread. Each run
+    // gets a fresh table, so later runs don't reuse the counts of earlier ones
+    static void scaling(Chessboard chessboard, int depth, int threads, int megabytes) {
+        double single = 0;
+
+        System.out.println("Threads        Nodes       ms      Nodes/sec  Speedup  Efficiency"
+            + (megabytes > 0 ? "  Table hits" : ""));
+
+        for (int n = 1; n <= threads; n++) {
+            PerftTable table = megabytes > 0 ? new PerftTable(megabytes) : null;
+            long start = System.nanoTime();
+            long nodes = Perft.parallel(chessboard, depth, n, table);
+            double rate = Perft.perSecond(nodes, System.nanoTime() - start);
+
+            if (n == 1) {
+                single = rate;
+            }
+
+            System.out.printf("%7d %12d %8d %14.0f %8.2f %10.0f%%", n, nodes,
+                (System.nanoTime() - start) / 1_000_000, rate, rate / single, 100 * rate / single / n);
+            System.out.println(table != null ? String.format("  %9.1f%%", 100 * table.hitRate()) : "");
+        }
+
+        if (threads > Runtime.getRuntime().availableProcessors()) {
+            System.out.println("Only " + Runtime.getRuntime().availableProcessors() + " cores are available, so the "
+                + "runs with more threads share them");
+        }
+    }
+
+    // Runs every reference position and returns "true" if all the counts match
+    static boolean suite(int depth) {
+        Chessboard chessboard = new Chessboard();
+        Perft perft = new Perft(chessboard);
+        boolean passed = true;
+
+        for (int i = 0; i < Perft.FENS.length; i++) {
+            int maxDepth = Math.min(depth > 0 ? depth : Perft.COUNTS[i].length, Perft.COUNTS[i].length);
+
+            System.out.println(Perft.FENS[i]);
+
+            for (int d = 1; d <= maxDepth; d++) {
+                long expected = Perft.COUNTS[i][d - 1];
+                long start;
+                long nodes;
+                long nanos;
+
+                if (depth == 0 && expected > Perft.SUITE_NODES) {
+                    break;
+                }
+
+                chessboard.loadFen(Perft.FENS[i]);
+                start = System.nanoTime();
+                nodes = perft.perft(d);
+                nanos = System.nanoTime() - start;
+                passed &= nodes == expected;
+
+                System.out.printf("  depth %d %12d %s %8d ms %12.0f nodes/sec%n", d, nodes,
+                    nodes == expected ? "ok     " : "FAILED (expected " + expected + ")", nanos / 1_000_000,
+                    Perft.perSecond(nodes, nanos));
+            }
+        }
+
+        System.out.println(passed ? "All counts match" : "Some counts are WRONG");
+
+        return passed;
+    }
+
+    // Returns the number of leaf nodes "depth" moves from the position
+    long perft(int depth) {
+        return this.perft(depth, 0);
+    }
+
+    // Prints the number of leaf nodes under each move of the side to move and returns their total
+    long divide(int depth) {
+        MoveList moves = this.moves(0);
+        long total = 0;
+
+        if (depth < 1) {
+            return 1;
+        }
+
+        this.chessboard.generateLegalMoves(moves);
+
+        for (int i = 0; i < moves.size(); i++) {
+            long nodes;
+
+            this.chessboard.makeMove(moves.get(i));
+            nodes = this.perft(depth - 1, 1);
+            this.chessboard.unmakeMove();
+
+            System.out.println(Move.name(moves.get(i)) + ": " + nodes);
+            total += nodes;
+        }
+
+        System.out.println();
+        System.out.println("Moves: " + moves.size());
+
+        return total;
+    }
+
+    private long perft(int depth, int ply) {
+        MoveList moves = this.moves(ply);
+        long nodes = 0;
+        long stored;
+
+        if (depth == 0) {
+            return 1;
+        }
+
+        // Counting the last ply is cheaper than looking it up
+        if (this.table != null && depth > 1) {
+            stored = this.table.probe(this.chessboard.getKey(), depth);
+
+            if (stored >= 0) {
+                return stored;
+            }
+        }
+
+        this.chessboard.generateLegalMoves(moves);
+
+        // The moves are legal, so the last ply only needs counting
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        for (int i = 0; i < moves.size(); i++) {
+            this.chessboard.makeMove(moves.get(i));
+            nodes += this.perft(depth - 1, ply + 1);
+            this.chessboard.unmakeMove();
+        }
+
+        if (this.table != null) {
+            this.table.store(this.chessboard.getKey(), depth, nodes);
+        }
+
+        return nodes;
+    }
+
+    private MoveList moves(int ply) {
+        if (this.moves[ply] == null) {
+            this.moves[ply] = new MoveList();
+        }
+
+        return this.moves[ply];
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: java Chess perft <depth> [FEN]");
+        System.out.println("       java Chess divide <depth> [FEN]");
+        System.out.println("       java Chess perft suite [depth]");
+        System.out.println("       java Chess perft parallel <depth> [FEN]");
+        System.out.println("       java Chess perft scaling <depth> [FEN]");
+    }
+
+    private static void report(long nodes, long nanos) {
+        System.out.println("Nodes: " + nodes);
+        System.out.println("Time: " + nanos / 1_000_000 + " ms");
+        System.out.printf("Nodes/sec: %.0f%n", Perft.perSecond(nodes, nanos));
+        System.out.printf("Magic tables built in %.1f ms%n", Magic.INIT_NANOS / 1e6);
+    }
+
+    private static double perSecond(long nodes, long nanos) {
+        return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+import java.util.concurrent.atomic.LongAdder;
+
+// A table of perft node counts keyed by Zobrist key and depth, shared by every perft thread without locks. Like
+// "TranspositionTable", each entry stores the key XORed with the count next to the count, so an entry torn by two
+// threads writing at once reads as a miss
+class PerftTable {
+    // Mixed into the key so that the counts of one position at different depths don't match each other
+    private static final long DEPTH_MIX = 0x9E3779B97F4A7C15L;
+
+    private final long[] table;
+    private final int mask;
+
+    private final LongAdder probes;
+    private final LongAdder hits;
+
+    // The table takes at most the given number of megabytes, rounded down to a power of two number of entries
+    PerftTable(int megabytes) {
+        super();
+        long entries = Long.highestOneBit(Math.max(1L, ((long) megabytes << 20) / (2 * Long.BYTES)));
+
+        entries = Math.min(entries, Long.highestOneBit(Integer.MAX_VALUE / 2));
+
+        this.table = new long[(int) (2 * entries)];
+        this.mask = (int) entries - 1;
+        this.probes = new LongAdder();
+        this.hits = new LongAdder();
+    }
+
+    // Returns the count stored for the position at the depth, or -1 if there's none
+    long probe(long key, int depth) {
+        long check = key ^ (depth * PerftTable.DEPTH_MIX);
+        int index = 2 * (int) (check & this.mask);
+        long count = this.table[index + 1];
+
+        this.probes.increment();
+
+        if ((this.table[index] ^ count) == check && count != 0) {
+            this.hits.increment();
+            return count;
+        }
+
+        return -1;
+    }
+
+    // Always replaces whatever was in the entry
+    void store(long key, int depth, long count) {
+        long check = key ^ (depth * PerftTable.DEPTH_MIX);
+        int index = 2 * (int) (check & this.mask);
+
+        this.table[index] = check ^ count;
+        this.table[index + 1] = count;
+    }
+
+    double hitRate() {
+        long probes = this.probes.sum();
+
+        return probes == 0 ? 0.0 : (double) this.hits.sum() / probes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d MB, %d probes, %.1f%% hits", ((long) this.table.length * Long.BYTES) >> 20,
+            this.probes.sum(), 100 * this.hitRate());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+// Counts the perft nodes under a position on a fork-join pool. The moves of the first few plies are split into
+// tasks of their own, each playing on a board of its own, and the rest of each subtree is counted serially
+class PerftTask extends RecursiveTask<Long> {
+    private static final long serialVersionUID = 1L;
+
+    private final Chessboard chessboard;
+    private final int depth;
+
+    // How many more plies get split into tasks
+    private final int splits;
+
+    // Shared by every task, or null
+    private final PerftTable table;
+
+    // The task owns the board and plays moves on it
+    PerftTask(Chessboard chessboard, int depth, int splits, PerftTable table) {
+        super();
+        this.chessboard = chessboard;
+        this.depth = depth;
+        this.splits = splits;
+        this.table = table;
+    }
+
+    @Override
+    protected Long compute() {
+        MoveList moves;
+        List<PerftTask> tasks;
+        long nodes = 0;
+
+        // Small subtrees aren't worth a board and a task of their own
+        if (this.splits == 0 || this.depth <= 2) {
+            return new Perft(this.chessboard, this.table).perft(this.depth);
+        }
+
+        moves = new MoveList();
+        tasks = new ArrayList<PerftTask>();
+        this.chessboard.generateLegalMoves(moves);
+
+        for (int i = 0; i < moves.size(); i++) {
+            this.chessboard.makeMove(moves.get(i));
+            tasks.add(new PerftTask(this.chessboard.copy(), this.depth - 1, this.splits - 1, this.table));
+            this.chessboard.unmakeMove();
+        }
+
+        for (PerftTask task : RecursiveTask.invokeAll(tasks)) {
+            nodes += task.join();
+        }
+
+        return nodes;
+    }
+}
\ No newline at end of file
@@ -1,15 +1,55 @@
+// Positions are immutable and interned, so use "Position.of()" to get one and compare them freely
 class Position {
-    private int row;
-    private int col;
+    // Coordinates up to two spaces off the board are interned as well, since Knights and Pawns look that far
+    private static final int MARGIN = 2;
+    private static final int SPAN = Chessboard.WIDTH + 2 * MARGIN;
+    private static final Position[] CACHE = new Position[SPAN * SPAN];
+    private static final Position[] SQUARES = new Position[Chessboard.SQUARES];
 
-    Position(int row, int col) {
+    static {
+        for (int row = 1 - Position.MARGIN; row <= Chessboard.HEIGHT + Position.MARGIN; row++) {
+            for (int col = 1 - Position.MARGIN; col <= Chessboard.WIDTH + Position.MARGIN; col++) {
+                Position pos = new Position(row, col);
+                Position.CACHE[Position.index(row, col)] = pos;
+
+                if (pos.square != Chessboard.NO_SQUARE) {
+                    Position.SQUARES[pos.square] = pos;
+                }
+            }
+        }
+    }
+
+    private final int row;
+    private final int col;
+    private final int square;
+
+    private Position(int row, int col) {
         super();
         this.row = row;
         this.col = col;
+
+        if (row >= 1 && row <= Chessboard.HEIGHT && col >= 1 && col <= Chessboard.WIDTH) {
+            this.square = Bitboard.square(row, col);
+
+        } else {
+            this.square = Chessboard.NO_SQUARE;
+        }
+    }
+
+    static Position of(int row, int col) {
+        boolean cached = row >= 1 - Position.MARGIN && row <= Chessboard.HEIGHT + Position.MARGIN
+            && col >= 1 - Position.MARGIN && col <= Chessboard.WIDTH + Position.MARGIN;
+
+        return cached ? Position.CACHE[Position.index(row, col)] : new Position(row, col);
+    }
+
+    // Returns the position of a square index from 0 to 63
+    static Position of(int square) {
+        return Position.SQUARES[square];
     }
 
-    Position() {
-        this(0, 0);
+    private static int index(int row, int col) {
+        return (row - 1 + Position.MARGIN) * Position.SPAN + (col - 1 + Position.MARGIN);
     }
 
     int getRow() {
@@ -20,15 +60,15 @@ class Position {
         return this.col;
     }
 
-    void setPosition(int row, int col) {
-        this.row = row;
-        this.col = col;
+    // Returns the square index from 0 to 63, or "Chessboard.NO_SQUARE" if the position is off the board
+    int getSquare() {
+        return this.square;
     }
 
     @Override
     public boolean equals(Object o) {
         Position pos = (Position) o;
-        
+
         return this.row == pos.getRow() && this.col == pos.getCol();
     }
 
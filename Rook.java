@@ -1,6 +1,6 @@
-import java.util.HashSet;
-
 class Rook extends ChessPiece {
+    static final int[][] DIRECTIONS = {{1, 0}, {-1, 0}, {0, -1}, {0, 1}};
+
     private boolean canCastle;
 
     Rook(ChessPlayer owner, Position start) {
@@ -12,6 +12,15 @@ class Rook extends ChessPiece {
         return this.canCastle;
     }
 
+    void setCanCastle(boolean canCastle) {
+        this.canCastle = canCastle;
+    }
+
+    @Override
+    int getType() {
+        return ChessPiece.ROOK;
+    }
+
     @Override
     boolean move(Chessboard chessboard, Position dest) {
         int destRow = dest.getRow();
@@ -21,11 +30,8 @@ class Rook extends ChessPiece {
         boolean samePosition;
         boolean outOfBounds;
         boolean traverseRow;
-        boolean traverseRowRight;
         boolean traverseCol;
-        boolean traverseColUp;
         boolean validMove;
-        Position pos;
 
         // If the player is in check, then check if the move escapes it
         if (this.getOwner().inCheck()) {
@@ -45,48 +51,14 @@ class Rook extends ChessPiece {
 
             if (!outOfBounds) {
                 traverseRow = destRow == thisRow;
-                traverseRowRight = traverseRow && destCol > thisCol;
                 traverseCol = destCol == thisCol;
-                traverseColUp = traverseCol && destRow > thisRow;
                 validMove = traverseRow || traverseCol;
-                pos = new Position();
 
                 if (validMove) {
-                    if (traverseRow) {
-                        if (traverseRowRight) {
-                            for (int curr = 1; curr < destCol - thisCol; curr++) {
-                                pos.setPosition(thisRow, thisCol + curr);
-                                if (!chessboard.vacantSpot(pos)) {
-                                    return false;
-                                }
-                            }
-    
-                        } else {
-                            for (int curr = 1; curr < thisCol - destCol; curr++) {
-                                pos.setPosition(thisRow, thisCol - curr);
-                                if (!chessboard.vacantSpot(pos)) {
-                                    return false;
-                                }
-                            }
-                        }
-                        
-                    } else {
-                        if (traverseColUp) {
-                            for (int curr = 1; curr < destRow - thisRow; curr++) {
-                                pos.setPosition(thisRow + curr, thisCol);
-                                if (!chessboard.vacantSpot(pos)) {
-                                    return false;
-                                }
-                            }
-    
-                        } else {
-                            for (int curr = 1; curr < thisRow - destRow; curr++) {
-                                pos.setPosition(thisRow - curr, thisCol);
-                                if (!chessboard.vacantSpot(pos)) {
-                                    return false;
-                                }
-                            }
-                        }
+                    // The path to the destination must be clear
+                    if (!Bitboard.contains(Rook.attacks(this.getPos().getSquare(), chessboard.getOccupied()),
+                        dest.getSquare())) {
+                        return false;
                     }
 
                     if (chessboard.friendlyFire(this.getOwner(), dest)) {
@@ -104,12 +76,7 @@ class Rook extends ChessPiece {
                     this.canCastle = false;
 
                     if (this.targetsKing(chessboard)) {
-                        if (this.getOwner() == Chess.PLAYER1) {
-                            Chess.PLAYER2.checked();
-
-                        } else {
-                            Chess.PLAYER1.checked();
-                        }
+                        chessboard.getOpponent(this.getOwner()).checked();
                     }
         
                 } else {
@@ -127,150 +94,13 @@ class Rook extends ChessPiece {
         return true;
     }
 
-    @Override
-    boolean targetsKing(Chessboard chessboard) {
-        int thisRow = this.getPos().getRow();
-        int thisCol = this.getPos().getCol();
-        Position pos = new Position(thisRow, thisCol);
-        String king;
-
-        if (this.getOwner() == Chess.PLAYER1) {
-            king = "ki";
-
-        } else {
-            king = "Ki";
-        }
-
-        for (int up = 1; thisRow + up <= 8; up++) {
-            pos.setPosition(thisRow + up, thisCol);
-            
-            if (!chessboard.vacantSpot(pos)) {
-                break;
-            }
-        }
-
-        if (chessboard.isPiece(pos) && chessboard.getID(pos).equals(king)) {
-            return true;
-        }
-
-        pos.setPosition(thisRow, thisCol);
-
-        for (int down = 1; thisRow - down >= 1; down++) {
-            pos.setPosition(thisRow - down, thisCol);
-
-            if (!chessboard.vacantSpot(pos)) {
-                break;
-            }
-        }
-
-        if (chessboard.isPiece(pos) && chessboard.getID(pos).equals(king)) {
-            return true;
-        }
-
-        pos.setPosition(thisRow, thisCol);
-
-        for (int left = 1; thisCol - left >= 1; left++) {
-            pos.setPosition(thisRow, thisCol - left);
-
-            if (!chessboard.vacantSpot(pos)) {
-                break;
-            }
-        }
-
-        if (chessboard.isPiece(pos) && chessboard.getID(pos).equals(king)) {
-            return true;
-        }
-
-        pos.setPosition(thisRow, thisCol);
-
-        for (int right = 1; thisCol + right <= 8; right++) {
-            pos.setPosition(thisRow, thisCol + right);
-
-            if (!chessboard.vacantSpot(pos)) {
-                break;
-            }
-        }
-
-        if (chessboard.isPiece(pos) && chessboard.getID(pos).equals(king)) {
-            return true;
-        }
-
-        return false;
+    // Returns the squares attacked by a Rook on the square, given the occupied squares
+    static long attacks(int square, long occupied) {
+        return Magic.rookAttacks(square, occupied);
     }
 
-    @Override
-    HashSet<Position> possibleMoves(Chessboard chessboard) {
-        HashSet<Position> moves = new HashSet<Position>();
-        int thisRow = this.getPos().getRow();
-        int thisCol = this.getPos().getCol();
-        Position pos = new Position(thisRow, thisCol);
-
-        for (int up = 1; thisRow + up <= 8; up++) {
-            pos.setPosition(thisRow + up, thisCol);
-
-            if (!chessboard.vacantSpot(pos)) {
-                if (chessboard.isEnemy(this.getOwner(), pos)) {
-                    moves.add(new Position(thisRow + up, thisCol));
-                }
-
-                break;
-
-            } else {
-                moves.add(new Position(thisRow + up, thisCol));
-            }
-        }
-
-        pos.setPosition(thisRow, thisCol);
-
-        for (int down = 1; thisRow - down >= 1; down++) {
-            pos.setPosition(thisRow - down, thisCol);
-
-            if (!chessboard.vacantSpot(pos)) {
-                if (chessboard.isEnemy(this.getOwner(), pos)) {
-                    moves.add(new Position(thisRow - down, thisCol));
-                }
-
-                break;
-
-            } else {
-                moves.add(new Position(thisRow - down, thisCol));
-            }
-        }
-
-        pos.setPosition(thisRow, thisCol);
-
-        for (int left = 1; thisCol - left >= 1; left++) {
-            pos.setPosition(thisRow, thisCol - left);
-
-            if (!chessboard.vacantSpot(pos)) {
-                if (chessboard.isEnemy(this.getOwner(), pos)) {
-                    moves.add(new Position(thisRow, thisCol - left));
-                }
-
-                break;
-
-            } else {
-                moves.add(new Position(thisRow, thisCol - left));
-            }    
-        }
-
-        pos.setPosition(thisRow, thisCol);
-
-        for (int right = 1; thisCol + right <= 8; right++) {
-            pos.setPosition(thisRow, thisCol + right);
-
-            if (!chessboard.vacantSpot(pos)) {
-                if (chessboard.isEnemy(this.getOwner(), pos)) {
-                    moves.add(new Position(thisRow, thisCol + right));
-                }
-
-                break;
-
-            } else {
-                moves.add(new Position(thisRow, thisCol + right));
-            }
-        }
-
-        return moves;
+    // Adds the moves of the Rook on the square to the list
+    static void generateMoves(Chessboard chessboard, int from, MoveList moves, int kind) {
+        ChessPiece.addMoves(chessboard, from, Rook.attacks(from, chessboard.getOccupied()), moves, kind);
     }
 }
\ No newline at end of file
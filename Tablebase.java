@@ -0,0 +1,492 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// An endgame tablebase: the exact result of every position of one ending, such as King and Queen against King,
+// with the distance to mate of the won ones. Each table is written once by "TablebaseGenerator" to a file named
+// after its signature, like "KQK.tb", and is memory-mapped from then on, so a probe is an index computation and one
+// read.
+//
+// The tables cover a King and some pieces (the "strong" side) against a lone King (the "weak" side). The strong
+// side is stored as White; a position where Black has the pieces is turned upside down first. Without Pawns every
+// position is the same as its reflections, so only the positions with the strong King in the a1-d1-d4 triangle are
+// stored, and with a Pawn only those with the Pawn on the a to d columns.
+//
+// The file is a header of two ints, a magic number and the bits per entry, then one entry per position packed
+// into as few bits as the longest mate needs: 0 for a draw (or a position that can't happen), otherwise one more
+// than the plies to mate
+class Tablebase {
+    // What a probe found, from the side to move's point of view
+    static final int NONE = -1;
+    static final int DRAW = 0;
+    static final int WIN = 1;
+    static final int LOSS = 2;
+
+    static final int STRONG = 0;
+    static final int WEAK = 1;
+
+    // The most pieces in a table, Kings included
+    static final int MAX_PIECES = 4;
+
+    // The longest mate an entry can hold, in plies
+    static final int MAX_PLIES = 126;
+
+    // The tables "java Chess tablebase generate" writes when it isn't given any. Each only needs the ones before it
+    static final String[] SIGNATURES = {"KQK", "KRK", "KBNK", "KPK"};
+
+    private static final int MAGIC = 0x43544231;
+    private static final int HEADER_BYTES = 8;
+    private static final String EXTENSION = ".tb";
+
+    // The letters of a signature, by piece type
+    private static final String LETTERS = "PNBRQK";
+
+    // The squares of the a1-d1-d4 triangle and the index of each in it, or -1 for the squares outside it
+    private static final int[] TRIANGLE_SQUARES = {0, 1, 2, 3, 9, 10, 11, 18, 19, 27};
+    private static final int[] TRIANGLE = new int[Chessboard.SQUARES];
+
+    // The ways a square can be reflected, which can be combined
+    private static final int FLIP_COLUMNS = 1;
+    private static final int FLIP_ROWS = 2;
+    private static final int FLIP_DIAGONAL = 4;
+
+    // A Pawn stands on one of 6 rows and, after reflecting, one of 4 columns
+    private static final int PAWN_SQUARES = 24;
+
+    // The loaded tables, by the material of the strong side (see "material()")
+    private static final Tablebase[] TABLES = new Tablebase[243];
+    private static int loaded;
+
+    static {
+        Arrays.fill(Tablebase.TRIANGLE, -1);
+
+        for (int i = 0; i < Tablebase.TRIANGLE_SQUARES.length; i++) {
+            Tablebase.TRIANGLE[Tablebase.TRIANGLE_SQUARES[i]] = i;
+        }
+    }
+
+    private final String signature;
+
+    // The types of the strong side's pieces besides its King, from the Queens down to the Pawn
+    private final int[] types;
+    private final boolean pawns;
+    private final int kingSquares;
+    private final int size;
+
+    // Set once the table is mapped
+    private MappedByteBuffer data;
+    private int bits;
+
+    // Throws IllegalArgumentException if the signature isn't a King and up to two pieces against a lone King, with
+    // at most one Pawn
+    Tablebase(String signature) {
+        super();
+        String pieces = signature.length() > 2 ? signature.substring(1, signature.length() - 1) : "";
+        int size = 2;
+        int count = 0;
+
+        if (!signature.matches("K[QRBNP]{1,2}K") || pieces.indexOf('P') != pieces.lastIndexOf('P')) {
+            throw new IllegalArgumentException("Not a tablebase signature: " + signature);
+        }
+
+        this.types = new int[pieces.length()];
+
+        for (int type = ChessPiece.QUEEN; type >= ChessPiece.PAWN; type--) {
+            for (int i = 0; i < pieces.length(); i++) {
+                if (pieces.charAt(i) == Tablebase.LETTERS.charAt(type)) {
+                    this.types[count++] = type;
+                }
+            }
+        }
+
+        this.signature = Tablebase.signature(this.types);
+        this.pawns = pieces.indexOf('P') >= 0;
+        this.kingSquares = this.pawns ? Chessboard.SQUARES : Tablebase.TRIANGLE_SQUARES.length;
+        size *= this.kingSquares * Chessboard.SQUARES;
+
+        for (int type : this.types) {
+            size *= type == ChessPiece.PAWN ? Tablebase.PAWN_SQUARES : Chessboard.SQUARES;
+        }
+
+        this.size = size;
+    }
+
+    // Runs "java Chess tablebase generate <directory> [signature ...]" or "java Chess tablebase probe <directory>
+    // <FEN>". Generating uses the number of cores as threads unless "-Dtablebase.threads=N" says otherwise
+    static void run(String args[]) {
+        int threads = Integer.getInteger("tablebase.threads", Runtime.getRuntime().availableProcessors());
+        Chessboard chessboard = new Chessboard();
+        String[] signatures;
+        Path directory;
+        int found;
+
+        if (args.length < 3 || !(args[1].equals("generate") || args[1].equals("probe"))) {
+            Tablebase.printUsage();
+            return;
+        }
+
+        directory = Paths.get(args[2]);
+
+        try {
+            Files.createDirectories(directory);
+            Tablebase.load(directory.toString());
+
+            if (args[1].equals("generate")) {
+                signatures = args.length > 3 ? Arrays.copyOfRange(args, 3, args.length) : Tablebase.SIGNATURES;
+
+                for (String signature : signatures) {
+                    TablebaseGenerator generator = new TablebaseGenerator(new Tablebase(signature));
+                    long start = System.nanoTime();
+
+                    generator.solve(threads);
+                    generator.getTable().save(directory, generator.getValues());
+                    Tablebase.open(directory.resolve(generator.getTable().signature + Tablebase.EXTENSION));
+                    System.out.println(generator + ", " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                }
+
+                return;
+            }
+
+            chessboard.loadFen(String.join(" ", Arrays.copyOfRange(args, 3, args.length)));
+            found = Tablebase.probe(chessboard);
+
+            if (found == Tablebase.NONE) {
+                System.out.println("The position isn't in the tablebases");
+
+            } else if (Tablebase.result(found) == Tablebase.DRAW) {
+                System.out.println("Draw");
+
+            } else {
+                System.out.println((Tablebase.result(found) == Tablebase.WIN ? "Mates" : "Is mated") + " in "
+                    + (Tablebase.plies(found) + 1) / 2 + " (" + Tablebase.plies(found) + " plies)");
+            }
+
+        } catch (IOException e) {
+            System.out.println("The tablebases can't be used: " + e.getMessage());
+
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            Tablebase.printUsage();
+        }
+    }
+
+    // Maps every table file in the directory and returns how many tables are loaded
+    static synchronized int load(String directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(directory), "*" + Tablebase.EXTENSION)) {
+            for (Path file : files) {
+                Tablebase.open(file);
+            }
+        }
+
+        return Tablebase.loaded;
+    }
+
+    // Maps the table in the file and makes it the one probed for its ending
+    static synchronized Tablebase open(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        Tablebase table = new Tablebase(name.substring(0, name.length() - Tablebase.EXTENSION.length()));
+        int material = Tablebase.material(table.types);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            table.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        table.bits = table.data.getInt(4);
+
+        if (table.data.getInt(0) != Tablebase.MAGIC
+            || table.data.capacity() != Tablebase.fileBytes(table.size, table.bits)) {
+            throw new IOException(file + " isn't a " + table.signature + " tablebase");
+        }
+
+        if (Tablebase.TABLES[material] == null) {
+            Tablebase.loaded++;
+        }
+
+        Tablebase.TABLES[material] = table;
+
+        return table;
+    }
+
+    // Returns the loaded table of the signature, or null
+    static Tablebase get(String signature) {
+        Tablebase table = new Tablebase(signature);
+
+        return Tablebase.TABLES[Tablebase.material(table.types)];
+    }
+
+    static int count() {
+        return Tablebase.loaded;
+    }
+
+    // Returns what the tables know about the position (see "result()" and "plies()"), or NONE if no table covers it.
+    // Positions that can still castle aren't covered
+    static int probe(Chessboard chessboard) {
+        return Tablebase.probe(chessboard, new int[Tablebase.MAX_PIECES]);
+    }
+
+    // The same, with an array of at least MAX_PIECES ints to work in, so that probing doesn't allocate
+    static int probe(Chessboard chessboard, int[] position) {
+        long occupied = chessboard.getOccupied();
+        int strong;
+        int material = 0;
+        long taken = 0L;
+        Tablebase table;
+
+        if (Tablebase.loaded == 0 || Bitboard.count(occupied) > Tablebase.MAX_PIECES
+            || chessboard.getCastlingRights() != 0) {
+            return Tablebase.NONE;
+        }
+
+        if (Bitboard.count(chessboard.getPieces(Chessboard.BLACK)) == 1) {
+            strong = Chessboard.WHITE;
+
+        } else if (Bitboard.count(chessboard.getPieces(Chessboard.WHITE)) == 1) {
+            strong = Chessboard.BLACK;
+
+        } else {
+            return Tablebase.NONE;
+        }
+
+        for (int type = ChessPiece.QUEEN; type >= ChessPiece.PAWN; type--) {
+            material = 3 * material + Bitboard.count(chessboard.getPieces(strong, type));
+        }
+
+        table = Tablebase.TABLES[material];
+
+        if (table == null) {
+            return Tablebase.NONE;
+        }
+
+        // Black's pieces are turned upside down, so that its Pawns move up the board like White's
+        position[0] = Tablebase.relative(Bitboard.first(chessboard.getPieces(strong, ChessPiece.KING)), strong);
+        position[1] = Tablebase.relative(Bitboard.first(chessboard.getPieces(1 - strong, ChessPiece.KING)), strong);
+
+        for (int i = 0; i < table.types.length; i++) {
+            int square = Bitboard.first(chessboard.getPieces(strong, table.types[i]) & ~taken);
+
+            taken |= Bitboard.bit(square);
+            position[2 + i] = Tablebase.relative(square, strong);
+        }
+
+        return table.probe(chessboard.getSideToMove() == strong ? Tablebase.STRONG : Tablebase.WEAK, position);
+    }
+
+    // Returns the packed result of the position of the table's side to move: its King, the other King, then its
+    // pieces in the order of "types"
+    int probe(int side, int[] position) {
+        int value = this.value(this.index(side, position));
+
+        if (value == 0) {
+            return Tablebase.DRAW;
+        }
+
+        return (value - 1) << 2 | (side == Tablebase.STRONG ? Tablebase.WIN : Tablebase.LOSS);
+    }
+
+    // Returns WIN, DRAW or LOSS
+    static int result(int found) {
+        return found & 3;
+    }
+
+    // Returns the plies to mate of a won or lost position
+    static int plies(int found) {
+        return found >>> 2;
+    }
+
+    String getSignature() {
+        return this.signature;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    int pieces() {
+        return this.types.length;
+    }
+
+    int type(int piece) {
+        return this.types[piece];
+    }
+
+    // Returns the bits per entry of a mapped table
+    int bits() {
+        return this.bits;
+    }
+
+    // Returns the index of a position laid out as for "probe()", after reflecting it the way the table stores it
+    int index(int side, int[] position) {
+        int reflection = this.reflection(position);
+        int king = Tablebase.reflect(position[0], reflection);
+        int index = side * this.kingSquares + (this.pawns ? king : Tablebase.TRIANGLE[king]);
+
+        index = index * Chessboard.SQUARES + Tablebase.reflect(position[1], reflection);
+
+        for (int i = 0; i < this.types.length; i++) {
+            int square = Tablebase.reflect(position[2 + i], reflection);
+
+            // Pawns are never on the first or last row
+            if (this.types[i] == ChessPiece.PAWN) {
+                index = index * Tablebase.PAWN_SQUARES + ((square >>> 3) - 1) * 4 + (square & 7);
+
+            } else {
+                index = index * Chessboard.SQUARES + square;
+            }
+        }
+
+        return index;
+    }
+
+    // Lays out the position of an index the way "index()" takes it, and returns its side to move
+    int decode(int index, int[] position) {
+        for (int i = this.types.length - 1; i >= 0; i--) {
+            if (this.types[i] == ChessPiece.PAWN) {
+                position[2 + i] = (index % Tablebase.PAWN_SQUARES / 4 + 1) * 8 + index % 4;
+                index /= Tablebase.PAWN_SQUARES;
+
+            } else {
+                position[2 + i] = index % Chessboard.SQUARES;
+                index /= Chessboard.SQUARES;
+            }
+        }
+
+        position[1] = index % Chessboard.SQUARES;
+        index /= Chessboard.SQUARES;
+        position[0] = this.pawns ? index % this.kingSquares : Tablebase.TRIANGLE_SQUARES[index % this.kingSquares];
+
+        return index / this.kingSquares;
+    }
+
+    // Returns the stored entry of the index
+    int value(int index) {
+        long bit = (long) index * this.bits;
+        long word = this.data.getLong(Tablebase.HEADER_BYTES + (int) (bit >>> 3));
+
+        return (int) (word >>> (Long.SIZE - (int) (bit & 7) - this.bits)) & ((1 << this.bits) - 1);
+    }
+
+    // Writes the entries to the table's file in the directory, packed into as few bits as the largest needs.
+    // Entries below 0 are stored as draws
+    void save(Path directory, byte[] values) throws IOException {
+        int largest = 1;
+        int bits;
+        byte[] file;
+
+        for (byte value : values) {
+            largest = Math.max(largest, value);
+        }
+
+        bits = Integer.SIZE - Integer.numberOfLeadingZeros(largest);
+        file = new byte[Tablebase.fileBytes(this.size, bits)];
+        ByteBuffer.wrap(file).putInt(Tablebase.MAGIC).putInt(bits);
+
+        for (int index = 0; index < this.size; index++) {
+            long bit = (long) index * bits;
+
+            for (int b = bits - 1; b >= 0 && values[index] > 0; b--, bit++) {
+                if ((values[index] >>> b & 1) != 0) {
+                    file[Tablebase.HEADER_BYTES + (int) (bit >>> 3)] |= 0x80 >>> (int) (bit & 7);
+                }
+            }
+        }
+
+        Files.write(directory.resolve(this.signature + Tablebase.EXTENSION), file);
+    }
+
+    // The reflection that brings the strong King into the triangle, or the Pawn onto the a to d columns
+    private int reflection(int[] position) {
+        int square = position[0];
+        int reflection = 0;
+
+        if (this.pawns) {
+            for (int i = 0; i < this.types.length; i++) {
+                if (this.types[i] == ChessPiece.PAWN && (position[2 + i] & 7) > 3) {
+                    return Tablebase.FLIP_COLUMNS;
+                }
+            }
+
+            return 0;
+        }
+
+        if ((square & 7) > 3) {
+            reflection |= Tablebase.FLIP_COLUMNS;
+            square ^= 7;
+        }
+
+        if ((square >>> 3) > 3) {
+            reflection |= Tablebase.FLIP_ROWS;
+            square ^= 56;
+        }
+
+        if ((square >>> 3) > (square & 7)) {
+            reflection |= Tablebase.FLIP_DIAGONAL;
+        }
+
+        return reflection;
+    }
+
+    private static int reflect(int square, int reflection) {
+        if ((reflection & Tablebase.FLIP_COLUMNS) != 0) {
+            square ^= 7;
+        }
+
+        if ((reflection & Tablebase.FLIP_ROWS) != 0) {
+            square ^= 56;
+        }
+
+        if ((reflection & Tablebase.FLIP_DIAGONAL) != 0) {
+            square = (square & 7) << 3 | square >>> 3;
+        }
+
+        return square;
+    }
+
+    private static int relative(int square, int side) {
+        return side == Chessboard.WHITE ? square : square ^ 56;
+    }
+
+    // The material of a strong side, with each type's count as a digit in base 3, Queens first
+    private static int material(int[] types) {
+        int material = 0;
+
+        for (int type = ChessPiece.QUEEN; type >= ChessPiece.PAWN; type--) {
+            int count = 0;
+
+            for (int t : types) {
+                count += t == type ? 1 : 0;
+            }
+
+            material = 3 * material + count;
+        }
+
+        return material;
+    }
+
+    // Returns the signature of a King and the pieces against a King, with the pieces in the order they're given
+    static String signature(int[] types) {
+        StringBuilder signature = new StringBuilder("K");
+
+        for (int type : types) {
+            signature.append(Tablebase.LETTERS.charAt(type));
+        }
+
+        return signature.append('K').toString();
+    }
+
+    // The header, the entries and a long of padding, so that reading the last entry stays inside the file
+    private static int fileBytes(int size, int bits) {
+        return Tablebase.HEADER_BYTES + (int) (((long) size * bits + 7) / 8) + Long.BYTES;
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: java Chess tablebase generate <directory> [signature ...]");
+        System.out.println("       java Chess tablebase probe <directory> <FEN>");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,406 @@
+import java.util.concurrent.ForkJoinPool;
+
+// Works out every position of a table by retrograde analysis. The mates are found first, then one ply at a time
+// the positions that are that many plies from mate: on odd plies the strong side wins if one of its moves reaches
+// a position the weak side loses a ply sooner, and on even plies the weak side loses if all of its moves reach
+// positions the strong side wins in fewer plies. The positions left once nothing more is found are draws.
+//
+// Each pass writes only the positions of one side to move and reads only those of the other, so the positions of
+// a pass are split among the threads of a fork-join pool without any locking. Moves follow the same attack tables
+// as the board's move generator. A move that takes a piece or promotes a Pawn leaves the table, and its result comes
+// from the table of the material left, which has to be generated first unless it can't mate
+class TablebaseGenerator {
+    // Entries of positions that can't happen and of the weak side's stalemates, which are never looked at again
+    private static final byte ILLEGAL = -1;
+    private static final byte STALEMATE = -2;
+
+    private final Tablebase table;
+
+    // The table's entries in the same form as the file's, until they're saved
+    private final byte[] values;
+
+    // The table the position turns into once the weak King takes each piece, or null if what's left is a draw
+    private final Tablebase[] captures;
+
+    // The table the position turns into once the Pawn becomes each type, or null if that's a draw
+    private final Tablebase[] promotions;
+
+    // The most plies a move that leaves the table can add to a mate
+    private int longestExit;
+
+    TablebaseGenerator(Tablebase table) {
+        super();
+        int[] types = new int[table.pieces()];
+
+        this.table = table;
+        this.values = new byte[table.size()];
+        this.captures = new Tablebase[table.pieces()];
+        this.promotions = new Tablebase[ChessPiece.KING];
+
+        for (int i = 0; i < types.length; i++) {
+            types[i] = table.type(i);
+        }
+
+        for (int i = 0; i < types.length; i++) {
+            int[] left = new int[types.length - 1];
+
+            for (int j = 0, k = 0; j < types.length; j++) {
+                if (j != i) {
+                    left[k++] = types[j];
+                }
+            }
+
+            this.captures[i] = this.exit(left);
+
+            if (types[i] == ChessPiece.PAWN) {
+                for (int type = ChessPiece.KNIGHT; type <= ChessPiece.QUEEN; type++) {
+                    int[] promoted = types.clone();
+
+                    promoted[i] = type;
+                    this.promotions[type] = this.exit(promoted);
+                }
+            }
+        }
+    }
+
+    Tablebase getTable() {
+        return this.table;
+    }
+
+    byte[] getValues() {
+        return this.values;
+    }
+
+    // Fills in every entry, using the given number of threads
+    void solve(int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        int half = this.table.size() / 2;
+        int idle = 0;
+
+        try {
+            pool.invoke(new TablebaseTask(this, 0, this.table.size(), 0));
+
+            // Two passes in a row without a result mean neither side has anything left to find, unless a move that
+            // leaves the table can still give a longer mate
+            for (int ply = 1; idle < 2 || ply <= this.longestExit + 1; ply++) {
+                int side = ply % 2 == 1 ? Tablebase.STRONG : Tablebase.WEAK;
+
+                if (ply > Tablebase.MAX_PLIES) {
+                    throw new IllegalStateException(this.table.getSignature() + " has mates longer than "
+                        + Tablebase.MAX_PLIES + " plies");
+                }
+
+                idle = pool.invoke(new TablebaseTask(this, side * half, (side + 1) * half, ply)) == 0 ? idle + 1 : 0;
+            }
+
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Works out one position in the pass of the ply, with "position", "next" and "exit" to work in, which each hold
+    // MAX_PIECES ints. Returns "true" if it found the position's result
+    boolean resolve(int index, int ply, int[] position, int[] next, int[] exit) {
+        int side;
+        boolean resolved;
+
+        if (ply == 0) {
+            return this.classify(index, position);
+        }
+
+        if (this.values[index] != 0) {
+            return false;
+        }
+
+        side = this.table.decode(index, position);
+        resolved = side == Tablebase.STRONG
+            ? this.wins(ply, position, next, exit)
+            : this.loses(ply, position, next, exit);
+
+        if (resolved) {
+            this.values[index] = (byte) (ply + 1);
+        }
+
+        return resolved;
+    }
+
+    // The first pass marks the positions that can't happen, the stalemates and the mates
+    private boolean classify(int index, int[] position) {
+        int side = this.table.decode(index, position);
+        int weakKing = position[1];
+        long occupied = this.occupied(position);
+
+        if (Bitboard.count(occupied) != this.table.pieces() + 2
+            || Bitboard.contains(King.attacks(position[0]), weakKing)) {
+            this.values[index] = TablebaseGenerator.ILLEGAL;
+            return false;
+        }
+
+        // The weak King can't be in check when it isn't its move
+        if (Bitboard.contains(this.attacks(position, occupied, -1), weakKing)) {
+            if (side == Tablebase.STRONG) {
+                this.values[index] = TablebaseGenerator.ILLEGAL;
+                return false;
+            }
+
+            if (this.weakMoves(position, occupied) == 0) {
+                this.values[index] = 1;
+                return true;
+            }
+
+        } else if (side == Tablebase.WEAK && this.weakMoves(position, occupied) == 0) {
+            this.values[index] = TablebaseGenerator.STALEMATE;
+        }
+
+        return false;
+    }
+
+    // Returns "true" if the strong side has a move to a position the weak side loses in one ply fewer
+    private boolean wins(int ply, int[] position, int[] next, int[] exit) {
+        long occupied = this.occupied(position);
+        long targets = King.attacks(position[0]) & ~occupied & ~King.attacks(position[1]);
+
+        System.arraycopy(position, 0, next, 0, this.table.pieces() + 2);
+
+        while (targets != 0) {
+            next[0] = Bitboard.first(targets);
+            targets &= targets - 1;
+
+            if (this.values[this.table.index(Tablebase.WEAK, next)] == ply) {
+                return true;
+            }
+        }
+
+        next[0] = position[0];
+
+        for (int i = 0; i < this.table.pieces(); i++) {
+            int from = position[2 + i];
+            int type = this.table.type(i);
+
+            if (type == ChessPiece.PAWN) {
+                targets = Bitboard.bit(from + 8) & ~occupied;
+
+                if (from < 16 && targets != 0) {
+                    targets |= Bitboard.bit(from + 16) & ~occupied;
+                }
+
+            } else {
+                targets = TablebaseGenerator.pieceAttacks(type, from, occupied) & ~occupied;
+            }
+
+            while (targets != 0) {
+                int to = Bitboard.first(targets);
+
+                targets &= targets - 1;
+                next[2 + i] = to;
+
+                if (type == ChessPiece.PAWN && to >= 56) {
+                    for (int promotion = ChessPiece.KNIGHT; promotion <= ChessPiece.QUEEN; promotion++) {
+                        if (this.exitValue(this.promotions[promotion], Tablebase.WEAK, next, i, promotion,
+                            exit) == ply) {
+                            return true;
+                        }
+                    }
+
+                } else if (this.values[this.table.index(Tablebase.WEAK, next)] == ply) {
+                    return true;
+                }
+            }
+
+            next[2 + i] = from;
+        }
+
+        return false;
+    }
+
+    // Returns "true" if the weak side has a move and every move reaches a position the strong side wins in fewer
+    // plies
+    private boolean loses(int ply, int[] position, int[] next, int[] exit) {
+        long occupied = this.occupied(position);
+        long targets = King.attacks(position[1]) & ~King.attacks(position[0]);
+        long attacked = this.attacks(position, occupied & ~Bitboard.bit(position[1]), -1);
+        boolean moved = false;
+
+        System.arraycopy(position, 0, next, 0, this.table.pieces() + 2);
+
+        while (targets != 0) {
+            int to = Bitboard.first(targets);
+            int taken = this.pieceOn(position, to);
+            int value;
+
+            targets &= targets - 1;
+
+            if (taken < 0) {
+                if (Bitboard.contains(attacked, to)) {
+                    continue;
+                }
+
+                next[1] = to;
+                value = this.values[this.table.index(Tablebase.STRONG, next)];
+
+            } else {
+                if (Bitboard.contains(this.attacks(position, occupied & ~Bitboard.bit(position[1]), taken), to)) {
+                    continue;
+                }
+
+                next[1] = to;
+                value = this.exitValue(this.captures[taken], Tablebase.STRONG, next, taken, -1, exit);
+            }
+
+            next[1] = position[1];
+            moved = true;
+
+            if (value <= 0 || value > ply) {
+                return false;
+            }
+        }
+
+        return moved;
+    }
+
+    // Returns how many legal moves the weak King has
+    private int weakMoves(int[] position, long occupied) {
+        long targets = King.attacks(position[1]) & ~King.attacks(position[0]);
+        int moves = 0;
+
+        while (targets != 0) {
+            int to = Bitboard.first(targets);
+
+            targets &= targets - 1;
+
+            if (!Bitboard.contains(this.attacks(position, occupied & ~Bitboard.bit(position[1]),
+                this.pieceOn(position, to)), to)) {
+                moves++;
+            }
+        }
+
+        return moves;
+    }
+
+    // Returns the entry, in the table the position turned into, of the position after piece "changed" was taken
+    // (when "type" is -1) or became "type", or 0 if that table is a draw
+    private int exitValue(Tablebase exit, int side, int[] position, int changed, int type, int[] squares) {
+        long used = 0L;
+
+        if (exit == null) {
+            return 0;
+        }
+
+        squares[0] = position[0];
+        squares[1] = position[1];
+
+        for (int i = 0; i < exit.pieces(); i++) {
+            for (int j = 0; j < this.table.pieces(); j++) {
+                int pieceType = j == changed ? type : this.table.type(j);
+
+                if ((used & 1L << j) == 0 && pieceType == exit.type(i)) {
+                    squares[2 + i] = position[2 + j];
+                    used |= 1L << j;
+                    break;
+                }
+            }
+        }
+
+        return exit.value(exit.index(side, squares));
+    }
+
+    // Returns the loaded table of the material, or null if the material can't mate. Throws IllegalStateException if
+    // the material can mate but its table hasn't been generated
+    private Tablebase exit(int[] types) {
+        Tablebase exit;
+
+        if (types.length == 0 || types.length == 1
+            && (types[0] == ChessPiece.KNIGHT || types[0] == ChessPiece.BISHOP)) {
+            return null;
+        }
+
+        exit = Tablebase.get(Tablebase.signature(types));
+
+        if (exit == null) {
+            throw new IllegalStateException(this.table.getSignature() + " needs the "
+                + new Tablebase(Tablebase.signature(types)).getSignature() + " table, so generate that first");
+        }
+
+        this.longestExit = Math.max(this.longestExit, (1 << exit.bits()) - 1);
+
+        return exit;
+    }
+
+    // Returns the squares the strong side attacks, leaving out the piece with the given index
+    private long attacks(int[] position, long occupied, int skipped) {
+        long attacks = King.attacks(position[0]);
+
+        for (int i = 0; i < this.table.pieces(); i++) {
+            if (i != skipped) {
+                attacks |= TablebaseGenerator.pieceAttacks(this.table.type(i), position[2 + i], occupied);
+            }
+        }
+
+        return attacks;
+    }
+
+    private long occupied(int[] position) {
+        long occupied = Bitboard.bit(position[0]) | Bitboard.bit(position[1]);
+
+        for (int i = 0; i < this.table.pieces(); i++) {
+            occupied |= Bitboard.bit(position[2 + i]);
+        }
+
+        return occupied;
+    }
+
+    // Returns the index of the strong piece on the square, or -1
+    private int pieceOn(int[] position, int square) {
+        for (int i = 0; i < this.table.pieces(); i++) {
+            if (position[2 + i] == square) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static long pieceAttacks(int type, int square, long occupied) {
+        switch (type) {
+            case ChessPiece.PAWN:
+                return Pawn.attacks(square, Chessboard.WHITE);
+
+            case ChessPiece.KNIGHT:
+                return Knight.attacks(square);
+
+            case ChessPiece.BISHOP:
+                return Bishop.attacks(square, occupied);
+
+            case ChessPiece.ROOK:
+                return Rook.attacks(square, occupied);
+
+            default:
+                return Queen.attacks(square, occupied);
+        }
+    }
+
+    // Sums up the table: how many positions each side wins and the longest mate
+    @Override
+    public String toString() {
+        int half = this.table.size() / 2;
+        int won = 0;
+        int lost = 0;
+        int longest = 0;
+
+        for (int index = 0; index < this.table.size(); index++) {
+            if (this.values[index] > 0) {
+                if (index < half) {
+                    won++;
+                    longest = Math.max(longest, this.values[index] - 1);
+
+                } else {
+                    lost++;
+                }
+            }
+        }
+
+        return String.format("%s: %d positions, %d won with the strong side to move, %d lost with the weak side to "
+            + "move, longest mate %d moves", this.table.getSignature(), this.table.size(), won, lost,
+            (longest + 1) / 2);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+import java.util.concurrent.RecursiveTask;
+
+// Works through a range of a table's positions for one pass of "TablebaseGenerator" on a fork-join pool. Ranges
+// are halved into tasks of their own until they're small, and each returns how many results it found
+class TablebaseTask extends RecursiveTask<Long> {
+    private static final long serialVersionUID = 1L;
+
+    // Ranges this small are worked through serially
+    private static final int CHUNK = 8192;
+
+    private final TablebaseGenerator generator;
+    private final int first;
+    private final int last;
+    private final int ply;
+
+    // Covers the positions from "first" up to but not including "last"
+    TablebaseTask(TablebaseGenerator generator, int first, int last, int ply) {
+        super();
+        this.generator = generator;
+        this.first = first;
+        this.last = last;
+        this.ply = ply;
+    }
+
+    @Override
+    protected Long compute() {
+        int middle = (this.first + this.last) >>> 1;
+        TablebaseTask lower;
+        TablebaseTask upper;
+        int[] position;
+        int[] next;
+        int[] exit;
+        long resolved = 0;
+
+        if (this.last - this.first > TablebaseTask.CHUNK) {
+            lower = new TablebaseTask(this.generator, this.first, middle, this.ply);
+            upper = new TablebaseTask(this.generator, middle, this.last, this.ply);
+            RecursiveTask.invokeAll(lower, upper);
+
+            return lower.join() + upper.join();
+        }
+
+        position = new int[Tablebase.MAX_PIECES];
+        next = new int[Tablebase.MAX_PIECES];
+        exit = new int[Tablebase.MAX_PIECES];
+
+        for (int index = this.first; index < this.last; index++) {
+            if (this.generator.resolve(index, this.ply, position, next, exit)) {
+                resolved++;
+            }
+        }
+
+        return resolved;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,217 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// A fixed-size table of search results keyed by Zobrist key, shared by any number of search threads without locks.
+// Each entry is two longs: the key XORed with the data, and the data itself. A reader only accepts an entry when
+// the two words XOR back to the key it's looking for, so an entry torn by two threads writing at once reads as a
+// miss instead of handing back another position's result
+class TranspositionTable {
+    // Bounds of a stored score
+    static final int UPPER = 1;
+    static final int LOWER = 2;
+    static final int EXACT = 3;
+
+    // The data of an entry holds the best move in bits 0-15, the score in bits 16-31, the depth in bits 32-39, the
+    // bound in bits 40-41 and the age in bits 42-47. The bound is never 0, so neither is the data of a stored entry
+    static final long NONE = 0L;
+
+    // Entries are grouped into buckets of four, which is 64 bytes, so a probe touches a single cache line
+    private static final int BUCKET = 4;
+    private static final int AGES = 64;
+    private static final int MAX_DEPTH = 255;
+
+    private final long[] table;
+    private final long bucketMask;
+    private volatile int age;
+
+    private final LongAdder probes;
+    private final LongAdder hits;
+    private final LongAdder stores;
+    private final LongAdder collisions;
+
+    // The table takes at most the given number of megabytes, rounded down to a power of two number of buckets
+    TranspositionTable(int megabytes) {
+        super();
+        int entryLongs = 2 * TranspositionTable.BUCKET;
+        long buckets = Long.highestOneBit(Math.max(1L, ((long) megabytes << 20) / (Long.BYTES * entryLongs)));
+
+        // A Java array can't hold more than about 2^31 longs, which is 16 GB
+        buckets = Math.min(buckets, Long.highestOneBit(Integer.MAX_VALUE / entryLongs));
+
+        this.table = new long[(int) (buckets * entryLongs)];
+        this.bucketMask = buckets - 1;
+        this.age = 0;
+        this.probes = new LongAdder();
+        this.hits = new LongAdder();
+        this.stores = new LongAdder();
+        this.collisions = new LongAdder();
+    }
+
+    static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    static int depth(long data) {
+        return (int) ((data >>> 32) & 0xFF);
+    }
+
+    static int bound(long data) {
+        return (int) ((data >>> 40) & 3);
+    }
+
+    private static int age(long data) {
+        return (int) ((data >>> 42) & (TranspositionTable.AGES - 1));
+    }
+
+    int getMegabytes() {
+        return (int) (((long) this.table.length * Long.BYTES) >> 20);
+    }
+
+    // Returns the data stored for the key, or NONE if it isn't in the table
+    long probe(long key) {
+        int start = this.bucketStart(key);
+
+        this.probes.increment();
+
+        for (int i = start; i < start + 2 * TranspositionTable.BUCKET; i += 2) {
+            long data = this.table[i + 1];
+
+            if ((this.table[i] ^ data) == key && data != TranspositionTable.NONE) {
+                this.hits.increment();
+                return data;
+            }
+        }
+
+        return TranspositionTable.NONE;
+    }
+
+    // Stores a search result. An entry for the same key is overwritten unless it was searched deeper in the current
+    // search and this result isn't exact. Otherwise the entry whose depth is least worth keeping is replaced,
+    // counting entries left over from earlier searches as shallower the older they are
+    void store(long key, int move, int score, int depth, int bound) {
+        int start = this.bucketStart(key);
+        int age = this.age;
+        int victim = start;
+        int worst = Integer.MAX_VALUE;
+        int stored = Math.max(0, Math.min(depth, TranspositionTable.MAX_DEPTH));
+        int best = move;
+        long data;
+
+        for (int i = start; i < start + 2 * TranspositionTable.BUCKET; i += 2) {
+            long old = this.table[i + 1];
+            int value;
+
+            if (old == TranspositionTable.NONE) {
+                victim = i;
+                worst = Integer.MIN_VALUE;
+                break;
+            }
+
+            if ((this.table[i] ^ old) == key) {
+                if (bound != TranspositionTable.EXACT && TranspositionTable.age(old) == age
+                    && TranspositionTable.depth(old) > stored) {
+                    return;
+                }
+
+                // Keep the old best move rather than forgetting it
+                if (best == Move.NONE) {
+                    best = TranspositionTable.move(old);
+                }
+
+                victim = i;
+                worst = Integer.MIN_VALUE;
+                break;
+            }
+
+            value = TranspositionTable.depth(old)
+                - 8 * ((age - TranspositionTable.age(old)) & (TranspositionTable.AGES - 1));
+
+            if (value < worst) {
+                victim = i;
+                worst = value;
+            }
+        }
+
+        if (worst != Integer.MIN_VALUE) {
+            this.collisions.increment();
+        }
+
+        data = (best & 0xFFFFL)
+            | ((score & 0xFFFFL) << 16)
+            | ((long) stored << 32)
+            | ((long) bound << 40)
+            | ((long) age << 42);
+
+        this.table[victim] = key ^ data;
+        this.table[victim + 1] = data;
+        this.stores.increment();
+    }
+
+    // Call before each new search, so that the entries of earlier ones are replaced first
+    void newSearch() {
+        this.age = (this.age + 1) & (TranspositionTable.AGES - 1);
+    }
+
+    void clear() {
+        Arrays.fill(this.table, 0L);
+        this.age = 0;
+        this.probes.reset();
+        this.hits.reset();
+        this.stores.reset();
+        this.collisions.reset();
+    }
+
+    long getProbes() {
+        return this.probes.sum();
+    }
+
+    long getHits() {
+        return this.hits.sum();
+    }
+
+    long getStores() {
+        return this.stores.sum();
+    }
+
+    // Returns the number of stores that evicted the entry of another position
+    long getCollisions() {
+        return this.collisions.sum();
+    }
+
+    double hitRate() {
+        long probes = this.probes.sum();
+
+        return probes == 0 ? 0.0 : (double) this.hits.sum() / probes;
+    }
+
+    // Returns how full the table is in permille, sampled from the first thousand entries of the current search
+    int fill() {
+        int entries = Math.min(1000, this.table.length / 2);
+        int used = 0;
+
+        for (int i = 0; i < 2 * entries; i += 2) {
+            long data = this.table[i + 1];
+
+            if (data != TranspositionTable.NONE && TranspositionTable.age(data) == this.age) {
+                used++;
+            }
+        }
+
+        return used * 1000 / entries;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d MB, %d probes, %.1f%% hits, %d stores, %d collisions, %d permille full",
+            this.getMegabytes(), this.getProbes(), 100 * this.hitRate(), this.getStores(), this.getCollisions(),
+            this.fill());
+    }
+
+    private int bucketStart(long key) {
+        return (int) ((key & this.bucketMask) * 2 * TranspositionTable.BUCKET);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,112 @@
+// Random keys for Zobrist hashing. The key of a position is the XOR of the keys of its pieces on their squares, its
+// castling rights, the column of its "en passant" square and the side to move, so any change to one of them
+// updates the key with a single XOR
+class Zobrist {
+    // Run with "-Dchess.zobrist.debug=true" to check the incremental key against a full recomputation after every
+    // change to the board
+    static final boolean DEBUG = Boolean.getBoolean("chess.zobrist.debug");
+
+    private static final long[][] PIECES = new long[2 * ChessPiece.TYPES][Chessboard.SQUARES];
+
+    // One key per combination of castling rights, each the XOR of the keys of the rights it holds
+    private static final long[] CASTLING = new long[Chessboard.ALL_CASTLING + 1];
+
+    private static final long[] EN_PASSANT = new long[Chessboard.WIDTH];
+    private static final long BLACK_TO_MOVE;
+
+    // The state of the xorshift generator. It's seeded with a constant so that keys are the same on every run
+    private static long seed = 0x9E3779B97F4A7C15L;
+
+    static {
+        long[] rights = new long[4];
+
+        for (int code = 0; code < 2 * ChessPiece.TYPES; code++) {
+            for (int square = 0; square < Chessboard.SQUARES; square++) {
+                Zobrist.PIECES[code][square] = Zobrist.random();
+            }
+        }
+
+        for (int i = 0; i < rights.length; i++) {
+            rights[i] = Zobrist.random();
+        }
+
+        for (int castling = 0; castling <= Chessboard.ALL_CASTLING; castling++) {
+            for (int i = 0; i < rights.length; i++) {
+                if ((castling & (1 << i)) != 0) {
+                    Zobrist.CASTLING[castling] ^= rights[i];
+                }
+            }
+        }
+
+        for (int col = 0; col < Chessboard.WIDTH; col++) {
+            Zobrist.EN_PASSANT[col] = Zobrist.random();
+        }
+
+        BLACK_TO_MOVE = Zobrist.random();
+    }
+
+    private Zobrist() {
+        super();
+    }
+
+    // Returns the key of the piece code ("side * ChessPiece.TYPES + type") on the square
+    static long piece(int code, int square) {
+        return Zobrist.PIECES[code][square];
+    }
+
+    static long castling(int rights) {
+        return Zobrist.CASTLING[rights];
+    }
+
+    // Returns the key of the column of the "en passant" square, or 0 if there's none
+    static long enPassant(int square) {
+        return square == Chessboard.NO_SQUARE ? 0L : Zobrist.EN_PASSANT[Bitboard.col(square) - 1];
+    }
+
+    static long sideToMove(int side) {
+        return side == Chessboard.BLACK ? Zobrist.BLACK_TO_MOVE : 0L;
+    }
+
+    // Returns the key of the board from scratch. The board keeps its key up to date by itself, so this is only
+    // needed to check it
+    static long compute(Chessboard chessboard) {
+        long key = 0L;
+        long remaining = chessboard.getOccupied();
+
+        while (remaining != 0) {
+            int square = Bitboard.first(remaining);
+
+            key ^= Zobrist.piece(chessboard.pieceAt(square), square);
+            remaining &= remaining - 1;
+        }
+
+        return key
+            ^ Zobrist.castling(chessboard.getCastlingRights())
+            ^ Zobrist.enPassant(chessboard.getEnPassantSquare())
+            ^ Zobrist.sideToMove(chessboard.getSideToMove());
+    }
+
+    // Returns the key of the board's Pawns from scratch, which the board also keeps up to date as its pawn key
+    static long computePawns(Chessboard chessboard) {
+        long key = 0L;
+
+        for (int side = Chessboard.WHITE; side <= Chessboard.BLACK; side++) {
+            long remaining = chessboard.getPieces(side, ChessPiece.PAWN);
+
+            while (remaining != 0) {
+                key ^= Zobrist.piece(side * ChessPiece.TYPES + ChessPiece.PAWN, Bitboard.first(remaining));
+                remaining &= remaining - 1;
+            }
+        }
+
+        return key;
+    }
+
+    private static long random() {
+        Zobrist.seed ^= Zobrist.seed >>> 12;
+        Zobrist.seed ^= Zobrist.seed << 25;
+        Zobrist.seed ^= Zobrist.seed >>> 27;
+
+        return Zobrist.seed * 0x2545F4914F6CDD1DL;
+    }
+}
\ No newline at end of file